@@ -1,59 +1,129 @@
 package com.hjalmar.android.newsapp;
 
 import android.app.LoaderManager;
-import android.content.Context;
 import android.content.Intent;
 import android.content.Loader;
-import android.content.SharedPreferences;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.net.Uri;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
-import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import com.hjalmar.android.newsapp.concurrent.AppExecutors;
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.data.ArticleBodyStore;
+import com.hjalmar.android.newsapp.data.FeedSnapshot;
 import com.hjalmar.android.newsapp.loader.ArticleLoader;
+import com.hjalmar.android.newsapp.loader.ArticleSearchLoader;
+import com.hjalmar.android.newsapp.metrics.Metrics;
 import com.hjalmar.android.newsapp.model.Article;
 import com.hjalmar.android.newsapp.model.ArticleAdapter;
+import com.hjalmar.android.newsapp.model.ArticleFeed;
+import com.hjalmar.android.newsapp.network.ConnectivityMonitor;
+import com.hjalmar.android.newsapp.network.NetworkQuality;
+import com.hjalmar.android.newsapp.sync.ArticleSync;
+import com.hjalmar.android.newsapp.util.ArticleQuery;
+import com.hjalmar.android.newsapp.util.LocalQuery;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
-public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<Article>> {
+public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<ArticleFeed> {
 
     private static final int ARTICLE_LOADER_ID = 0;
 
-    private static final String GUARDIAN_REQUEST_URL = "https://content.guardianapis.com/search";
+    private static final int SEARCH_LOADER_ID = 1;
 
     /**
-     * Keys used for the query parameters to build the http request
+     * Key of the search query in the arguments of the search loader
      */
-    private enum RequestParameterKey {
-        API_KEY("api-key"), FORMAT("format"), TAG("tag"), SHOW_TAGS("show-tags"), Q("q"), ORDER_BY("order-by");
+    private static final String SEARCH_QUERY_KEY = "search_query";
 
-        private final String tag;
+    /**
+     * The number of article rows kept ready to be rebound, enough to cover a fast fling
+     */
+    private static final int MAX_RECYCLED_ROWS = 20;
+
+    /**
+     * Adapter for the list of articles
+     */
+    private ArticleAdapter mAdapter;
+
+    /**
+     * LayoutManager of the RecyclerView displaying the articles of the feed
+     */
+    private LinearLayoutManager mLayoutManager;
+
+    /**
+     * The last feed loaded, shown whenever no search is in progress
+     */
+    private ArticleFeed mFeed;
 
-        RequestParameterKey(String tag) {
-            this.tag = tag;
+    /**
+     * The order the articles of the feed have been requested in
+     */
+    private LocalQuery.Order mFeedOrder;
+
+    /**
+     * The order and the filters of the settings, applied to the feed before showing it
+     */
+    private LocalQuery mLocalQuery;
+
+    /**
+     * Follows the network, to which the loading is adapted
+     */
+    private ConnectivityMonitor mConnectivityMonitor;
+
+    /**
+     * The class of the network when it was last checked, or null before the first check
+     */
+    private NetworkQuality mNetworkQuality;
+
+    /**
+     * Resumes the loading as soon as the network allows it, while the activity is started
+     */
+    private final ConnectivityMonitor.Listener mConnectivityListener = new ConnectivityMonitor.Listener() {
+        @Override
+        public void onNetworkQualityChanged(NetworkQuality quality) {
+            applyNetworkQuality(quality);
         }
+    };
 
-        String tag() {
-            return tag;
+    /**
+     * The words searched in the stored articles, or null when not searching
+     */
+    private String mSearchQuery;
+
+    /**
+     * Callbacks of the loader searching the stored articles
+     */
+    private final LoaderManager.LoaderCallbacks<List<Article>> mSearchCallbacks = new LoaderManager.LoaderCallbacks<List<Article>>() {
+        @Override
+        public Loader<List<Article>> onCreateLoader(int id, Bundle args) {
+            return new ArticleSearchLoader(MainActivity.this, args.getString(SEARCH_QUERY_KEY));
+        }
+
+        @Override
+        public void onLoadFinished(Loader<List<Article>> loader, List<Article> articles) {
+            if (mSearchQuery != null) {
+                showArticles(articles, R.string.search_no_results);
+            }
         }
-    }
+
+        @Override
+        public void onLoaderReset(Loader<List<Article>> loader) {
+        }
+    };
 
     /**
-     * Adapter for the list of articles
+     * Start time of the article loader, until its first result is delivered
      */
-    private ArrayAdapter<Article> mAdapter;
+    private long mLoadStart;
 
     /**
      * ProgressBar that is displayed while waiting for the data from the server
@@ -68,122 +138,319 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        Metrics.setEnabled(BuildConfig.DEBUG);
         setContentView(R.layout.activity_main);
 
-        // Find a reference to the {@link ListView} in the layout
-        ListView articleListView = findViewById(R.id.list);
+        mLocalQuery = LocalQuery.fromPreferences(this);
+        mConnectivityMonitor = ConnectivityMonitor.getInstance(this);
+
+        // Find a reference to the {@link RecyclerView} in the layout
+        RecyclerView articleRecyclerView = findViewById(R.id.list);
 
         mProgressBar = findViewById(R.id.loading_spinner);
 
-        // Set a default empty view used when the adapter is not filled
+        // The empty view is shown only when the adapter is not filled
         mEmptyStateTextView = findViewById(R.id.empty_view);
-        articleListView.setEmptyView(mEmptyStateTextView);
 
-        // Create a new {@link ArrayAdapter} of article
-        mAdapter = new ArticleAdapter(this, 0, new ArrayList<Article>());
+        mLayoutManager = new LinearLayoutManager(this);
+        articleRecyclerView.setLayoutManager(mLayoutManager);
+        articleRecyclerView.setHasFixedSize(true);
 
-        // Set the adapter on the {@link ListView}
+        // Rows all have the same type, so a larger pool avoids inflating new ones during flings
+        RecyclerView.RecycledViewPool recycledViewPool = new RecyclerView.RecycledViewPool();
+        recycledViewPool.setMaxRecycledViews(0, MAX_RECYCLED_ROWS);
+        articleRecyclerView.setRecycledViewPool(recycledViewPool);
+
+        // Create a new {@link ArticleAdapter}, which opens the clicked article in the reader,
+        // or in a web browser if its body has not been prefetched.
+        mAdapter = new ArticleAdapter(this, new ArticleAdapter.OnArticleClickListener() {
+            @Override
+            public void onArticleClick(Article article) {
+                startActivity(ReaderActivity.newIntent(MainActivity.this, article));
+            }
+        });
+
+        // Set the adapter on the {@link RecyclerView}
         // so the list can be populated in the user interface
-        articleListView.setAdapter(mAdapter);
+        articleRecyclerView.setAdapter(mAdapter);
 
-        // Set an item click listener on the ListView, which sends an intent to a web browser
-        // to open a website with more information about the selected article.
-        articleListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // Load the adjacent pages when the user scrolls near either end of the list
+        articleRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                Article article = mAdapter.getItem(position);
-                if (article != null) {
-                    openWebPage(article.getUrl());
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                final int totalItemCount = mLayoutManager.getItemCount();
+                if (totalItemCount == 0) {
+                    return;
+                }
+
+                // The slower the network, the closer to the end of the list the loading starts
+                final int prefetchDistance = mConnectivityMonitor.getQuality().getPrefetchDistance();
+
+                // Get the thumbnails of the rows about to be shown
+                final int lastVisiblePosition = mLayoutManager.findLastVisibleItemPosition();
+                if (dy > 0 && lastVisiblePosition != RecyclerView.NO_POSITION) {
+                    mAdapter.prefetchThumbnails(lastVisiblePosition + 1, lastVisiblePosition + prefetchDistance);
+                }
+
+                if (mSearchQuery != null) {
+                    return;
+                }
+                Loader<ArticleFeed> loader = getLoaderManager().getLoader(ARTICLE_LOADER_ID);
+                if (loader instanceof ArticleLoader) {
+                    ArticleLoader articleLoader = (ArticleLoader) loader;
+                    if (lastVisiblePosition >= totalItemCount - 1 - prefetchDistance) {
+                        articleLoader.loadNextPage();
+                    } else if (mLayoutManager.findFirstVisibleItemPosition() <= prefetchDistance) {
+                        articleLoader.loadPreviousPage();
+                    }
                 }
             }
         });
 
-        if (isDeviceConnected()) {
-            // Start the AsyncTaskLoader to fetch the article data
-            getLoaderManager().initLoader(ARTICLE_LOADER_ID, null, this);
-        } else {
-            mProgressBar.setVisibility(View.GONE);
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
+        // On a cold start show the articles of the last session in the first frame,
+        // they are replaced by the result of the loader as soon as it is delivered
+        if (getLoaderManager().getLoader(ARTICLE_LOADER_ID) == null) {
+            showSnapshot();
         }
+
+        // Keep the articles of the current settings synchronized in background
+        ArticleSync.schedule(this);
+
+        // Start the ArticleLoader to fetch the article data. It is started even when
+        // the device is offline, as the articles may be served from the cache.
+        getLoaderManager().initLoader(ARTICLE_LOADER_ID, null, this);
     }
 
     @Override
-    public Loader<List<Article>> onCreateLoader(int id, Bundle args) {
-        final SharedPreferences defaultSharedPreferences = PreferenceManager.getDefaultSharedPreferences(this);
-
-        // Retrieve preferences settings
-        final String gameTopicSetting = defaultSharedPreferences.getString(getString(R.string.settings_game_topic_key), getString(R.string.settings_game_topic_default));
-        final String orderBySetting = defaultSharedPreferences.getString(getString(R.string.settings_order_by_key), getString(R.string.settings_order_by_default));
+    protected void onStart() {
+        super.onStart();
+        applySettings();
 
-        Uri baseUri = Uri.parse(GUARDIAN_REQUEST_URL);
-        Uri.Builder uriBuilder = baseUri.buildUpon();
+        // The network may have changed while stopped
+        mConnectivityMonitor.addListener(mConnectivityListener);
+        applyNetworkQuality(mConnectivityMonitor.getQuality());
+    }
 
-        // Append query parameters and their values
-        uriBuilder.appendQueryParameter(RequestParameterKey.API_KEY.tag(), getString(R.string.request_parameter_value_api_key));
-        uriBuilder.appendQueryParameter(RequestParameterKey.FORMAT.tag(), getString(R.string.request_parameter_value_format));
-        uriBuilder.appendQueryParameter(RequestParameterKey.TAG.tag(), getString(R.string.request_parameter_value_tag));
-        uriBuilder.appendQueryParameter(RequestParameterKey.SHOW_TAGS.tag(), getString(R.string.request_parameter_value_show_tags));
-        uriBuilder.appendQueryParameter(RequestParameterKey.Q.tag(), gameTopicSetting);
-        uriBuilder.appendQueryParameter(RequestParameterKey.ORDER_BY.tag(), orderBySetting);
+    @Override
+    protected void onStop() {
+        super.onStop();
+        mConnectivityMonitor.removeListener(mConnectivityListener);
+    }
 
-        // Create a new loader for the given URL
-        return new ArticleLoader(this, uriBuilder.toString());
+    @Override
+    public Loader<ArticleFeed> onCreateLoader(int id, Bundle args) {
+        // Create a new loader for the query described by the settings
+        mLoadStart = Metrics.start();
+        return new ArticleLoader(this, ArticleQuery.fromPreferences(this));
     }
 
     @Override
-    public void onLoadFinished(Loader<List<Article>> loader, List<Article> articles) {
+    public void onLoadFinished(Loader<ArticleFeed> loader, ArticleFeed feed) {
         // We hide the progress bar
         mProgressBar.setVisibility(View.GONE);
 
-        // Clear the adapter of previous data
-        mAdapter.clear();
+        if (mLoadStart != 0) {
+            Metrics.record(Metrics.Stage.LOAD, mLoadStart);
+            mLoadStart = 0;
+        }
 
-        // If there is a valid list of {@link Article}s, then add them to the adapter's
-        // data set. This will trigger the ListView to update.
-        if (articles != null && !articles.isEmpty()) {
-            mAdapter.addAll(articles);
+        // While searching, the feed is shown again only when the search ends
+        mFeed = feed;
+        if (loader instanceof ArticleLoader) {
+            mFeedOrder = ((ArticleLoader) loader).getQuery().getOrderBy();
+        }
+        if (mSearchQuery == null) {
+            showFeed();
         }
 
-        // We add the text to the empty View only after,
-        // so it will get displayed only in case of failure
-        mEmptyStateTextView.setText(R.string.news_not_found);
+        // Keep the top of the feed for the next cold start
+        if (feed != null && !feed.isEmpty() && !feed.hasPreviousPages() && loader instanceof ArticleLoader) {
+            FeedSnapshot.save(this, ((ArticleLoader) loader).getQuery().getKey(), feed.getArticles());
+            prefetchBodies(feed.getArticles());
+        }
     }
 
     @Override
-    public void onLoaderReset(Loader<List<Article>> loader) {
+    public void onLoaderReset(Loader<ArticleFeed> loader) {
         // Loader reset, so we can clear out our existing data.
-        mAdapter.clear();
+        mFeed = null;
+        mAdapter.submitList(null);
     }
 
-    private void openWebPage(String url) {
-        Uri webpage = Uri.parse(url);
-        Intent intent = new Intent(Intent.ACTION_VIEW, webpage);
-        if (intent.resolveActivity(getPackageManager()) != null) {
-            startActivity(intent);
+    /**
+     * Apply the settings, which may have changed since the feed has been loaded.
+     * When the loaded articles are enough for the new settings, i.e. only the order or the filters
+     * changed, they are sorted and filtered again on the device. Otherwise the loader is restarted
+     * with the new query, which serves them from the cache when it can.
+     */
+    private void applySettings() {
+        mLocalQuery = LocalQuery.fromPreferences(this);
+
+        Loader<ArticleFeed> loader = getLoaderManager().getLoader(ARTICLE_LOADER_ID);
+        if (!(loader instanceof ArticleLoader)) {
+            return;
+        }
+        final ArticleQuery loadedQuery = ((ArticleLoader) loader).getQuery();
+        final ArticleQuery query = ArticleQuery.fromPreferences(this);
+        if (!query.getKey().equals(loadedQuery.getKey())) {
+            // The feed is complete when it holds all the pages of the query
+            final boolean isComplete = mFeed != null && !mFeed.hasPreviousPages() && mFeed.isLastPageReached();
+            if (!query.getResultKey().equals(loadedQuery.getResultKey())
+                    || !mLocalQuery.canApply(loadedQuery.getOrderBy(), isComplete)) {
+                getLoaderManager().restartLoader(ARTICLE_LOADER_ID, null, this);
+                return;
+            }
+        }
+
+        if (mFeed != null && mSearchQuery == null) {
+            showFeed();
         }
     }
 
     /**
-     * Check if the device is connected to internet
+     * Resume the work deferred until the network allows it. Once the connection returns the feed
+     * is loaded again and the missing thumbnails requested, and once on an unmetered network
+     * the bodies of the first articles are prefetched. The page size of the requests is picked
+     * when the feed is created, so that the pages already loaded stay in the same query.
      */
-    private boolean isDeviceConnected() {
-        boolean isConnected = false;
+    private void applyNetworkQuality(NetworkQuality quality) {
+        final NetworkQuality previousQuality = mNetworkQuality;
+        mNetworkQuality = quality;
+        if (previousQuality == null || previousQuality == quality || !quality.isConnected()) {
+            return;
+        }
 
-        ConnectivityManager connectivityManager =
-                (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (!previousQuality.isConnected()) {
+            Loader<ArticleFeed> loader = getLoaderManager().getLoader(ARTICLE_LOADER_ID);
+            if (loader instanceof ArticleLoader) {
+                ((ArticleLoader) loader).refresh();
+            }
+            mAdapter.notifyItemRangeChanged(0, mAdapter.getItemCount());
+        }
+        if (mFeed != null && !mFeed.isEmpty() && !mFeed.hasPreviousPages()) {
+            prefetchBodies(mFeed.getArticles());
+        }
+    }
 
-        if (connectivityManager != null) {
-            NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
-            isConnected = activeNetwork != null &&
-                    activeNetwork.isConnectedOrConnecting();
+    /**
+     * Prefetch the bodies of the first articles in background, while on an unmetered network.
+     * On a metered one they are prefetched by the next sync.
+     */
+    private void prefetchBodies(final List<Article> articles) {
+        if (!mConnectivityMonitor.getQuality().allowsPrefetch()) {
+            return;
         }
 
-        return isConnected;
+        final ArticleBodyStore bodyStore = ArticleBodyStore.getInstance(this);
+        AppExecutors.network().submit(Priority.BACKGROUND, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return bodyStore.prefetch(articles);
+            }
+        });
+    }
+
+    private void showSnapshot() {
+        final ArticleQuery query = ArticleQuery.fromPreferences(this);
+        List<Article> articles = mLocalQuery.apply(FeedSnapshot.load(this, query.getKey()), query.getOrderBy());
+        if (!articles.isEmpty()) {
+            mProgressBar.setVisibility(View.GONE);
+            // The first list submitted to the adapter is shown straight away, without diffing
+            mAdapter.submitList(articles);
+        }
+    }
+
+    private void showFeed() {
+        // We add the text to the empty View only after,
+        // so it will get displayed only in case of failure
+        final int emptyTextId = mConnectivityMonitor.getQuality().isConnected() ? R.string.news_not_found : R.string.no_internet_connection;
+        showArticles(mFeed != null ? mLocalQuery.apply(mFeed.getArticles(), mFeedOrder) : null, emptyTextId);
+    }
+
+    /**
+     * Submit the given articles to the adapter, or show the empty view with the given text
+     * if there are none. The difference with the rows shown is computed in background,
+     * and only the rows that changed will be updated.
+     */
+    private void showArticles(List<Article> articles, int emptyTextId) {
+        final boolean isEmpty = articles == null || articles.isEmpty();
+        mAdapter.submitList(isEmpty ? null : articles);
+
+        mEmptyStateTextView.setText(emptyTextId);
+        mEmptyStateTextView.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Search the given words in the stored articles, or show the feed again if there are none.
+     * Each change of the query restarts the search, which only reads the local database.
+     */
+    private void search(String query) {
+        if (query.trim().isEmpty()) {
+            endSearch();
+            return;
+        }
+
+        mSearchQuery = query;
+        Bundle args = new Bundle();
+        args.putString(SEARCH_QUERY_KEY, query);
+        getLoaderManager().restartLoader(SEARCH_LOADER_ID, args, mSearchCallbacks);
+    }
+
+    private void endSearch() {
+        if (mSearchQuery != null) {
+            mSearchQuery = null;
+            getLoaderManager().destroyLoader(SEARCH_LOADER_ID);
+            showFeed();
+        }
+    }
+
+    /**
+     * Send the snapshot of the metrics recorded so far, e.g. to attach it to a bug report.
+     */
+    private void shareMetrics() {
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("application/json");
+        intent.putExtra(Intent.EXTRA_TEXT, Metrics.snapshot());
+        startActivity(Intent.createChooser(intent, getString(R.string.share_metrics_menu_item)));
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_options, menu);
+
+        // Search the stored articles while the user types
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                search(query);
+                return false;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                search(newText);
+                return true;
+            }
+        });
+        // The metrics are only recorded in debug builds
+        menu.findItem(R.id.action_share_metrics).setVisible(Metrics.isEnabled());
+
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                endSearch();
+                return true;
+            }
+        });
+
         return true;
     }
 
@@ -194,6 +461,9 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
             Intent settingsIntent = new Intent(this, SettingsActivity.class);
             startActivity(settingsIntent);
             return true;
+        } else if (itemId == R.id.action_share_metrics) {
+            shareMetrics();
+            return true;
         }
 
         return super.onOptionsItemSelected(item);
@@ -0,0 +1,120 @@
+package com.hjalmar.android.newsapp;
+
+import android.app.LoaderManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.Loader;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import com.hjalmar.android.newsapp.data.ArticleBodyStore;
+import com.hjalmar.android.newsapp.loader.ArticleBodyLoader;
+import com.hjalmar.android.newsapp.model.Article;
+
+/**
+ * Shows the body of an article prefetched in the {@link ArticleBodyStore}, without any request.
+ * An article whose body has not been prefetched is opened in the browser instead.
+ */
+public class ReaderActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<String> {
+
+    private static final String EXTRA_URL = "url";
+    private static final String EXTRA_TITLE = "title";
+    private static final String EXTRA_BYLINE = "byline";
+
+    private static final int BODY_LOADER_ID = 0;
+
+    private String mUrl;
+
+    private TextView mBodyTextView;
+
+    private ProgressBar mProgressBar;
+
+    /**
+     * Return the intent opening the given article in the reader.
+     */
+    public static Intent newIntent(Context context, Article article) {
+        final String authorsLine = article.getAuthorsLine();
+        final String byline = authorsLine.isEmpty() ? article.getPublicationDateLabel()
+                : context.getString(R.string.reader_byline, authorsLine, article.getPublicationDateLabel());
+
+        Intent intent = new Intent(context, ReaderActivity.class);
+        intent.putExtra(EXTRA_URL, article.getUrl());
+        intent.putExtra(EXTRA_TITLE, article.getArticleTitle());
+        intent.putExtra(EXTRA_BYLINE, byline);
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_reader);
+
+        Intent intent = getIntent();
+        mUrl = intent.getStringExtra(EXTRA_URL);
+        setTitle(intent.getStringExtra(EXTRA_TITLE));
+
+        TextView titleTextView = findViewById(R.id.reader_title);
+        titleTextView.setText(intent.getStringExtra(EXTRA_TITLE));
+        TextView bylineTextView = findViewById(R.id.reader_byline);
+        bylineTextView.setText(intent.getStringExtra(EXTRA_BYLINE));
+
+        mBodyTextView = findViewById(R.id.reader_body);
+        mProgressBar = findViewById(R.id.reader_loading_spinner);
+
+        getLoaderManager().initLoader(BODY_LOADER_ID, null, this);
+    }
+
+    @Override
+    public Loader<String> onCreateLoader(int id, Bundle args) {
+        return new ArticleBodyLoader(this, mUrl);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<String> loader, String body) {
+        mProgressBar.setVisibility(View.GONE);
+
+        if (body == null) {
+            // Not prefetched, fall back to the full page
+            openWebPage();
+            finish();
+            return;
+        }
+        mBodyTextView.setText(body);
+    }
+
+    @Override
+    public void onLoaderReset(Loader<String> loader) {
+        mBodyTextView.setText(null);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_reader, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_open_in_browser) {
+            openWebPage();
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void openWebPage() {
+        Uri webpage = Uri.parse(mUrl);
+        Intent intent = new Intent(Intent.ACTION_VIEW, webpage);
+        if (intent.resolveActivity(getPackageManager()) != null) {
+            startActivity(intent);
+        }
+    }
+
+}
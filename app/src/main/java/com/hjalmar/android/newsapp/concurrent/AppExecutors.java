@@ -0,0 +1,72 @@
+package com.hjalmar.android.newsapp.concurrent;
+
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The thread pools of the loading pipeline, one for each kind of work, so that slow
+ * network requests never hold the threads that parse, merge or store their results.
+ * <ul>
+ * <li>{@link #network()} performs the requests, parsing the responses as they are received</li>
+ * <li>{@link #loads()} runs the loads of the feed, which wait for their requests and then merge the pages</li>
+ * <li>{@link #compute()} runs the loads answered from the device alone, like the searches</li>
+ * <li>{@link #disk()} stores the loaded pages, one at a time in submission order</li>
+ * </ul>
+ */
+public final class AppExecutors {
+
+    /**
+     * The maximum number of requests running at the same time
+     */
+    private static final int NETWORK_THREADS = 4;
+
+    /**
+     * Every running load of the feed waits for at least one request, so more of them
+     * than requests could not make progress
+     */
+    private static final int LOAD_THREADS = NETWORK_THREADS;
+
+    private static final int COMPUTE_THREADS = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+
+    private static final PriorityExecutor sNetwork = new PriorityExecutor("network", NETWORK_THREADS);
+
+    private static final PriorityExecutor sLoads = new PriorityExecutor("loads", LOAD_THREADS);
+
+    private static final PriorityExecutor sCompute = new PriorityExecutor("compute", COMPUTE_THREADS);
+
+    private static final ExecutorService sDisk = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "disk");
+        }
+    });
+
+    private AppExecutors() {
+    }
+
+    public static PriorityExecutor network() {
+        return sNetwork;
+    }
+
+    public static PriorityExecutor loads() {
+        return sLoads;
+    }
+
+    public static PriorityExecutor compute() {
+        return sCompute;
+    }
+
+    public static ExecutorService disk() {
+        return sDisk;
+    }
+
+}
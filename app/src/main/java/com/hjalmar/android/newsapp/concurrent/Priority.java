@@ -0,0 +1,32 @@
+package com.hjalmar.android.newsapp.concurrent;
+
+import android.os.Process;
+
+/**
+ * How urgent a task is. Queued tasks run in this order, and each runs
+ * with the thread priority of its level.
+ */
+public enum Priority {
+    /**
+     * Work the user is waiting for, e.g. the articles on the screen
+     */
+    VISIBLE(Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE),
+    /**
+     * Work whose result will likely be shown soon, e.g. the revalidation of a cached page
+     */
+    PREFETCH(Process.THREAD_PRIORITY_BACKGROUND),
+    /**
+     * Work no one is waiting for, e.g. the periodic sync
+     */
+    BACKGROUND(Process.THREAD_PRIORITY_LOWEST);
+
+    private final int mThreadPriority;
+
+    Priority(int threadPriority) {
+        this.mThreadPriority = threadPriority;
+    }
+
+    int getThreadPriority() {
+        return mThreadPriority;
+    }
+}
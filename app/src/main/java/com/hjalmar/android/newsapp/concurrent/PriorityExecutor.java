@@ -0,0 +1,105 @@
+package com.hjalmar.android.newsapp.concurrent;
+
+import android.os.Process;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of threads whose queued tasks run by {@link Priority},
+ * and in the order they were submitted within the same priority.
+ * Tasks submitted without a priority run as {@link Priority#PREFETCH}.
+ */
+public class PriorityExecutor extends ThreadPoolExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final Priority DEFAULT_PRIORITY = Priority.PREFETCH;
+
+    public PriorityExecutor(final String name, int threads) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        return new Thread(runnable, name + " #" + mCount.incrementAndGet());
+                    }
+                });
+        // Idle pools don't keep their threads around
+        allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submit the callable to run with the given priority.
+     */
+    public <T> Future<T> submit(Priority priority, Callable<T> callable) {
+        Task<T> task = new Task<>(callable, priority);
+        execute(task);
+        return task;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(command instanceof Task ? command : new Task<Void>(command, null, DEFAULT_PRIORITY));
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new Task<>(callable, DEFAULT_PRIORITY);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new Task<>(runnable, value, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * A task ordered by priority, then by submission
+     */
+    public static class Task<T> extends FutureTask<T> implements Comparable<Task<?>> {
+
+        private static final AtomicLong sSequence = new AtomicLong();
+
+        private final Priority mPriority;
+        private final long mSequence = sSequence.getAndIncrement();
+
+        public Task(Callable<T> callable, Priority priority) {
+            super(callable);
+            this.mPriority = priority;
+        }
+
+        public Task(Runnable runnable, T value, Priority priority) {
+            super(runnable, value);
+            this.mPriority = priority;
+        }
+
+        public Priority getPriority() {
+            return mPriority;
+        }
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(mPriority.getThreadPriority());
+            super.run();
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            final int byPriority = mPriority.compareTo(other.mPriority);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.util.ArticleQuery;
+import com.hjalmar.android.newsapp.util.QueryUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The bodies of the articles at the top of the feed, prefetched so that they can be read
+ * in the app right away, even offline. Each body is stored deflated in a {@link DiskCache},
+ * a few kilobytes for an article, and the least recently read ones are evicted first.
+ * All the methods perform disk I/O and must not be called on the main thread.
+ */
+public class ArticleBodyStore {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleBodyStore.class.getSimpleName();
+
+    /**
+     * The number of articles at the top of the feed whose body is prefetched
+     */
+    public static final int PREFETCH_COUNT = 10;
+
+    private static final String DIRECTORY_NAME = "article_bodies";
+
+    /**
+     * The maximum size of the stored bodies once compressed, a few hundred articles
+     */
+    private static final long MAX_BYTES = 4 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static ArticleBodyStore sInstance;
+
+    private final Context mContext;
+
+    private final DiskCache mDiskCache;
+
+    private ArticleBodyStore(Context context) {
+        this.mContext = context;
+        // Not in the cache directory, which the system may clear while the device is offline
+        this.mDiskCache = new DiskCache(new File(context.getFilesDir(), DIRECTORY_NAME), MAX_BYTES);
+    }
+
+    public static synchronized ArticleBodyStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodyStore(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return the body of the article with the given url, or null if it is not stored.
+     */
+    public String get(String url) {
+        File file = mDiskCache.get(url);
+        if (file == null) {
+            return null;
+        }
+
+        try {
+            Reader reader = new InputStreamReader(new InflaterInputStream(new FileInputStream(file)), UTF_8);
+            try {
+                StringBuilder sb = new StringBuilder((int) file.length() * 4);
+                char[] buffer = new char[BUFFER_SIZE];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    sb.append(buffer, 0, read);
+                }
+                return sb.toString();
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the body of " + url, e);
+            return null;
+        }
+    }
+
+    /**
+     * Request the bodies of the first {@link #PREFETCH_COUNT} articles of the given list that are
+     * not stored yet, all in one request, and store them. This method blocks until they are stored.
+     *
+     * @return the number of bodies stored
+     */
+    public synchronized int prefetch(List<Article> articles) {
+        List<String> urls = new ArrayList<>(PREFETCH_COUNT);
+        for (int i = 0; i < articles.size() && i < PREFETCH_COUNT; i++) {
+            final String url = articles.get(i).getUrl();
+            if (mDiskCache.get(url) == null) {
+                urls.add(url);
+            }
+        }
+        if (urls.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, String> bodies = QueryUtils.fetchArticleBodies(ArticleQuery.bodiesUrl(mContext, urls));
+        if (bodies == null) {
+            return 0;
+        }
+
+        int stored = 0;
+        for (String url : urls) {
+            final String body = bodies.get(url);
+            if (body != null && put(url, body)) {
+                stored++;
+            }
+        }
+        Log.d(LOG_TAG, "Prefetched " + stored + " of " + urls.size() + " article bodies");
+        return stored;
+    }
+
+    private boolean put(String url, String body) {
+        try {
+            mDiskCache.put(url, compress(body));
+            return true;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem storing the body of " + url, e);
+            return false;
+        }
+    }
+
+    /**
+     * Return the deflated bytes of the given text. The bodies are written once and read
+     * many times, so they are compressed as much as possible.
+     */
+    private static InputStream compress(String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length() / 3);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            Writer writer = new OutputStreamWriter(new DeflaterOutputStream(bytes, deflater), UTF_8);
+            writer.write(body);
+            writer.close();
+        } finally {
+            deflater.end();
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+}
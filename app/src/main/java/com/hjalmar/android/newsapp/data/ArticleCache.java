@@ -0,0 +1,462 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import android.util.LongSparseArray;
+
+import com.hjalmar.android.newsapp.data.ArticleContract.ArticleAuthorEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.ArticleEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.ArticleSearchEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.AuthorEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.PageArticleEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.PageEntry;
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.util.StringPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Persistent cache of the {@link Article}s returned for a request URL, stored in the
+ * database described by {@link ArticleContract}, so cached results survive process death.
+ * Articles and authors shared by several requests are stored once, and every stored
+ * article is added to a full-text index, so it can be searched without the network.
+ * Entries are evicted once they get older than {@link #MAX_AGE} or when more than
+ * {@link #MAX_PAGES} are stored, starting from the least recently written ones.
+ */
+public class ArticleCache {
+
+    /**
+     * The time in milliseconds after which an entry is evicted
+     */
+    private static final long MAX_AGE = 7 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * The maximum number of pages stored
+     */
+    private static final int MAX_PAGES = 100;
+
+    private static ArticleCache sInstance;
+
+    private final ArticleDbHelper mDbHelper;
+
+    /**
+     * A list of {@link Article}s as it was stored for a request URL,
+     * together with the validators of the response it was parsed from
+     */
+    public static class Entry {
+
+        private final List<Article> mArticles;
+        private final String mETag;
+        private final String mLastModified;
+        private final long mBodySize;
+        private final long mTimestamp;
+
+        public Entry(List<Article> articles, String eTag, String lastModified, long bodySize, long timestamp) {
+            this.mArticles = articles;
+            this.mETag = eTag;
+            this.mLastModified = lastModified;
+            this.mBodySize = bodySize;
+            this.mTimestamp = timestamp;
+        }
+
+        public List<Article> getArticles() {
+            return mArticles;
+        }
+
+        public String getETag() {
+            return mETag;
+        }
+
+        public String getLastModified() {
+            return mLastModified;
+        }
+
+        /**
+         * Return the size in bytes of the decoded response body the articles were parsed from.
+         */
+        public long getBodySize() {
+            return mBodySize;
+        }
+
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+
+        /**
+         * Return true if the entry can be used without revalidating it against the server,
+         * being younger than the given time in milliseconds.
+         */
+        public boolean isFresh(long freshTtl) {
+            return System.currentTimeMillis() - mTimestamp < freshTtl;
+        }
+    }
+
+    private ArticleCache(ArticleDbHelper dbHelper) {
+        this.mDbHelper = dbHelper;
+    }
+
+    public static synchronized ArticleCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleCache(new ArticleDbHelper(context.getApplicationContext()));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return the entry stored for the given request URL, or null if there is none
+     * or it has expired. This method performs disk I/O and must not be called on the main thread.
+     */
+    public Entry get(String requestUrl) {
+        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+
+        final String[] projection = {PageEntry.COLUMN_ETAG, PageEntry.COLUMN_LAST_MODIFIED,
+                PageEntry.COLUMN_BODY_SIZE, PageEntry.COLUMN_TIMESTAMP};
+        final String[] selectionArgs = {requestUrl};
+
+        String eTag;
+        String lastModified;
+        long bodySize;
+        long timestamp;
+        Cursor cursor = db.query(PageEntry.TABLE_NAME, projection, PageEntry.COLUMN_URL + " = ?", selectionArgs,
+                null, null, null);
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            eTag = cursor.getString(0);
+            lastModified = cursor.getString(1);
+            bodySize = cursor.getLong(2);
+            timestamp = cursor.getLong(3);
+        } finally {
+            cursor.close();
+        }
+
+        // Outdated entries are deleted the next time the cache is trimmed
+        if (System.currentTimeMillis() - timestamp > MAX_AGE) {
+            return null;
+        }
+
+        return new Entry(Collections.unmodifiableList(readArticles(db, requestUrl)), eTag, lastModified, bodySize, timestamp);
+    }
+
+    /**
+     * Return true if an entry is stored for the given request URL and has not expired,
+     * without reading its articles.
+     * This method performs disk I/O and must not be called on the main thread.
+     */
+    public boolean contains(String requestUrl) {
+        Cursor cursor = mDbHelper.getReadableDatabase().query(PageEntry.TABLE_NAME, new String[]{PageEntry.COLUMN_TIMESTAMP},
+                PageEntry.COLUMN_URL + " = ?", new String[]{requestUrl}, null, null, null);
+        try {
+            return cursor.moveToFirst() && System.currentTimeMillis() - cursor.getLong(0) <= MAX_AGE;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Store the entry for the given request URL, replacing any previous one,
+     * and then evict entries until the cache fits its limits.
+     * All the writes happen in a single transaction.
+     * This method performs disk I/O and must not be called on the main thread.
+     */
+    public void put(String requestUrl, Entry entry) {
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            writePage(db, requestUrl, entry);
+            trim(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Return the stored articles whose title, authors or section contain words starting
+     * with the words of the given query, the most recent first.
+     * This method performs disk I/O and must not be called on the main thread.
+     *
+     * @param signal cancels the running query, e.g. once the user typed another query,
+     *               which then throws {@link android.os.OperationCanceledException}; may be null
+     */
+    public List<Article> search(String query, int limit, CancellationSignal signal) {
+        final String matchQuery = buildMatchQuery(query);
+        if (matchQuery.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return queryArticles(mDbHelper.getReadableDatabase(),
+                " FROM " + ArticleSearchEntry.TABLE_NAME
+                        + " JOIN " + ArticleEntry.TABLE_NAME + " a ON a." + ArticleEntry._ID + " = " + ArticleSearchEntry.TABLE_NAME + "." + ArticleSearchEntry.COLUMN_DOCID
+                        + " WHERE " + ArticleSearchEntry.TABLE_NAME + " MATCH ?"
+                        + " ORDER BY a." + ArticleEntry.COLUMN_PUBLICATION_TIME + " DESC LIMIT " + limit,
+                new String[]{matchQuery}, signal);
+    }
+
+    /**
+     * Return the full-text query matching the words that start with each word of the user query,
+     * or an empty string if the query has no words.
+     */
+    static String buildMatchQuery(String query) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : query.split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                // Lower case words can't be mistaken for the operators of the query syntax
+                sb.append(normalize(word)).append('*');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return the text as it is indexed and queried. The default tokenizer of the index only
+     * folds the case of ASCII letters, so the text is lower cased before reaching it.
+     */
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Article> readArticles(SQLiteDatabase db, String requestUrl) {
+        return queryArticles(db,
+                " FROM " + PageArticleEntry.TABLE_NAME + " pa"
+                        + " JOIN " + ArticleEntry.TABLE_NAME + " a ON a." + ArticleEntry._ID + " = pa." + PageArticleEntry.COLUMN_ARTICLE_ID
+                        + " WHERE pa." + PageArticleEntry.COLUMN_PAGE_URL + " = ?"
+                        + " ORDER BY pa." + PageArticleEntry.COLUMN_POSITION,
+                new String[]{requestUrl}, null);
+    }
+
+    /**
+     * Return the articles selected by the given clause, which must select from the
+     * articles table aliased as "a" and can use the given arguments.
+     */
+    private static List<Article> queryArticles(SQLiteDatabase db, String fromClause, String[] selectionArgs,
+                                               CancellationSignal signal) {
+        StringPool pool = new StringPool();
+
+        // Authors of all the selected articles, grouped by article
+        LongSparseArray<List<String>> authorsById = new LongSparseArray<>();
+        Cursor cursor = db.rawQuery("SELECT aa." + ArticleAuthorEntry.COLUMN_ARTICLE_ID + ", au." + AuthorEntry.COLUMN_NAME
+                + " FROM " + ArticleAuthorEntry.TABLE_NAME + " aa"
+                + " JOIN " + AuthorEntry.TABLE_NAME + " au ON au." + AuthorEntry._ID + " = aa." + ArticleAuthorEntry.COLUMN_AUTHOR_ID
+                + " WHERE aa." + ArticleAuthorEntry.COLUMN_ARTICLE_ID + " IN (SELECT a." + ArticleEntry._ID + fromClause + ")"
+                + " ORDER BY aa." + ArticleAuthorEntry.COLUMN_ARTICLE_ID + ", aa." + ArticleAuthorEntry.COLUMN_POSITION, selectionArgs, signal);
+        try {
+            while (cursor.moveToNext()) {
+                final long articleId = cursor.getLong(0);
+                List<String> authors = authorsById.get(articleId);
+                if (authors == null) {
+                    authors = new ArrayList<>();
+                    authorsById.put(articleId, authors);
+                }
+                authors.add(pool.intern(cursor.getString(1)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        List<Article> articles = new ArrayList<>();
+        cursor = db.rawQuery("SELECT a." + ArticleEntry._ID + ", a." + ArticleEntry.COLUMN_TITLE + ", a." + ArticleEntry.COLUMN_SECTION
+                + ", a." + ArticleEntry.COLUMN_PUBLICATION_DATE + ", a." + ArticleEntry.COLUMN_URL
+                + ", a." + ArticleEntry.COLUMN_THUMBNAIL_URL + fromClause, selectionArgs, signal);
+        try {
+            while (cursor.moveToNext()) {
+                articles.add(new Article(cursor.getString(1), pool.intern(authorsById.get(cursor.getLong(0))),
+                        pool.intern(cursor.getString(2)), cursor.getString(3), cursor.getString(4), cursor.getString(5), pool));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return articles;
+    }
+
+    private static void writePage(SQLiteDatabase db, String requestUrl, Entry entry) {
+        SQLiteStatement insertPage = db.compileStatement("INSERT OR REPLACE INTO " + PageEntry.TABLE_NAME + " ("
+                + PageEntry.COLUMN_URL + ", " + PageEntry.COLUMN_ETAG + ", " + PageEntry.COLUMN_LAST_MODIFIED + ", "
+                + PageEntry.COLUMN_BODY_SIZE + ", " + PageEntry.COLUMN_TIMESTAMP + ") VALUES (?, ?, ?, ?, ?)");
+        insertPage.bindString(1, requestUrl);
+        bindNullableString(insertPage, 2, entry.getETag());
+        bindNullableString(insertPage, 3, entry.getLastModified());
+        insertPage.bindLong(4, entry.getBodySize());
+        insertPage.bindLong(5, entry.getTimestamp());
+        insertPage.executeInsert();
+        insertPage.close();
+
+        db.delete(PageArticleEntry.TABLE_NAME, PageArticleEntry.COLUMN_PAGE_URL + " = ?", new String[]{requestUrl});
+
+        // Compile the statements once and reuse them for every article of the page
+        ArticleWriter writer = new ArticleWriter(db);
+        SQLiteStatement insertPageArticle = db.compileStatement("INSERT INTO " + PageArticleEntry.TABLE_NAME + " ("
+                + PageArticleEntry.COLUMN_PAGE_URL + ", " + PageArticleEntry.COLUMN_POSITION + ", "
+                + PageArticleEntry.COLUMN_ARTICLE_ID + ") VALUES (?, ?, ?)");
+        try {
+            List<Article> articles = entry.getArticles();
+            for (int i = 0; i < articles.size(); i++) {
+                insertPageArticle.bindString(1, requestUrl);
+                insertPageArticle.bindLong(2, i);
+                insertPageArticle.bindLong(3, writer.upsert(articles.get(i)));
+                insertPageArticle.executeInsert();
+            }
+        } finally {
+            insertPageArticle.close();
+            writer.close();
+        }
+    }
+
+    /**
+     * Delete the expired pages and the least recently written ones over {@link #MAX_PAGES},
+     * then the articles, index entries and authors no longer referenced by any page.
+     */
+    private static void trim(SQLiteDatabase db) {
+        final long expiration = System.currentTimeMillis() - MAX_AGE;
+        db.delete(PageEntry.TABLE_NAME, PageEntry.COLUMN_TIMESTAMP + " < ? OR " + PageEntry._ID + " NOT IN (SELECT "
+                        + PageEntry._ID + " FROM " + PageEntry.TABLE_NAME + " ORDER BY " + PageEntry.COLUMN_TIMESTAMP
+                        + " DESC LIMIT " + MAX_PAGES + ")",
+                new String[]{String.valueOf(expiration)});
+        db.delete(PageArticleEntry.TABLE_NAME, PageArticleEntry.COLUMN_PAGE_URL + " NOT IN (SELECT "
+                + PageEntry.COLUMN_URL + " FROM " + PageEntry.TABLE_NAME + ")", null);
+        db.delete(ArticleEntry.TABLE_NAME, ArticleEntry._ID + " NOT IN (SELECT "
+                + PageArticleEntry.COLUMN_ARTICLE_ID + " FROM " + PageArticleEntry.TABLE_NAME + ")", null);
+        db.delete(ArticleSearchEntry.TABLE_NAME, ArticleSearchEntry.COLUMN_DOCID + " NOT IN (SELECT "
+                + ArticleEntry._ID + " FROM " + ArticleEntry.TABLE_NAME + ")", null);
+        db.delete(ArticleAuthorEntry.TABLE_NAME, ArticleAuthorEntry.COLUMN_ARTICLE_ID + " NOT IN (SELECT "
+                + ArticleEntry._ID + " FROM " + ArticleEntry.TABLE_NAME + ")", null);
+        db.delete(AuthorEntry.TABLE_NAME, AuthorEntry._ID + " NOT IN (SELECT "
+                + ArticleAuthorEntry.COLUMN_AUTHOR_ID + " FROM " + ArticleAuthorEntry.TABLE_NAME + ")", null);
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    /**
+     * Inserts or updates articles, their authors and their full-text index entry
+     * with precompiled statements. Must be used inside a transaction.
+     */
+    private static class ArticleWriter {
+
+        private final SQLiteStatement mSelectArticle;
+        private final SQLiteStatement mInsertArticle;
+        private final SQLiteStatement mUpdateArticle;
+        private final SQLiteStatement mDeleteArticleAuthors;
+        private final SQLiteStatement mSelectAuthor;
+        private final SQLiteStatement mInsertAuthor;
+        private final SQLiteStatement mInsertArticleAuthor;
+        private final SQLiteStatement mDeleteSearchEntry;
+        private final SQLiteStatement mInsertSearchEntry;
+
+        ArticleWriter(SQLiteDatabase db) {
+            mSelectArticle = db.compileStatement("SELECT " + ArticleEntry._ID + " FROM " + ArticleEntry.TABLE_NAME
+                    + " WHERE " + ArticleEntry.COLUMN_URL + " = ?");
+            mInsertArticle = db.compileStatement("INSERT INTO " + ArticleEntry.TABLE_NAME + " ("
+                    + ArticleEntry.COLUMN_TITLE + ", " + ArticleEntry.COLUMN_SECTION + ", " + ArticleEntry.COLUMN_PUBLICATION_DATE + ", "
+                    + ArticleEntry.COLUMN_PUBLICATION_TIME + ", " + ArticleEntry.COLUMN_THUMBNAIL_URL + ", "
+                    + ArticleEntry.COLUMN_URL + ") VALUES (?, ?, ?, ?, ?, ?)");
+            mUpdateArticle = db.compileStatement("UPDATE " + ArticleEntry.TABLE_NAME + " SET "
+                    + ArticleEntry.COLUMN_TITLE + " = ?, " + ArticleEntry.COLUMN_SECTION + " = ?, " + ArticleEntry.COLUMN_PUBLICATION_DATE + " = ?, "
+                    + ArticleEntry.COLUMN_PUBLICATION_TIME + " = ?, " + ArticleEntry.COLUMN_THUMBNAIL_URL + " = ? WHERE "
+                    + ArticleEntry.COLUMN_URL + " = ?");
+            mDeleteArticleAuthors = db.compileStatement("DELETE FROM " + ArticleAuthorEntry.TABLE_NAME
+                    + " WHERE " + ArticleAuthorEntry.COLUMN_ARTICLE_ID + " = ?");
+            mSelectAuthor = db.compileStatement("SELECT " + AuthorEntry._ID + " FROM " + AuthorEntry.TABLE_NAME
+                    + " WHERE " + AuthorEntry.COLUMN_NAME + " = ?");
+            mInsertAuthor = db.compileStatement("INSERT INTO " + AuthorEntry.TABLE_NAME + " ("
+                    + AuthorEntry.COLUMN_NAME + ") VALUES (?)");
+            mInsertArticleAuthor = db.compileStatement("INSERT INTO " + ArticleAuthorEntry.TABLE_NAME + " ("
+                    + ArticleAuthorEntry.COLUMN_ARTICLE_ID + ", " + ArticleAuthorEntry.COLUMN_AUTHOR_ID + ", "
+                    + ArticleAuthorEntry.COLUMN_POSITION + ") VALUES (?, ?, ?)");
+            mDeleteSearchEntry = db.compileStatement("DELETE FROM " + ArticleSearchEntry.TABLE_NAME
+                    + " WHERE " + ArticleSearchEntry.COLUMN_DOCID + " = ?");
+            mInsertSearchEntry = db.compileStatement("INSERT INTO " + ArticleSearchEntry.TABLE_NAME + " ("
+                    + ArticleSearchEntry.COLUMN_DOCID + ", " + ArticleSearchEntry.COLUMN_TITLE + ", "
+                    + ArticleSearchEntry.COLUMN_AUTHORS + ", " + ArticleSearchEntry.COLUMN_SECTION + ") VALUES (?, ?, ?, ?)");
+        }
+
+        /**
+         * Insert the article, or update it if its url is already stored, and return its id.
+         */
+        long upsert(Article article) {
+            long articleId = selectId(mSelectArticle, article.getUrl());
+            SQLiteStatement statement = articleId == -1 ? mInsertArticle : mUpdateArticle;
+            statement.bindString(1, article.getArticleTitle());
+            statement.bindString(2, article.getSectionName());
+            statement.bindString(3, article.getPublicationDate());
+            statement.bindLong(4, article.getPublicationTime());
+            if (article.getThumbnailUrl() != null) {
+                statement.bindString(5, article.getThumbnailUrl());
+            } else {
+                statement.bindNull(5);
+            }
+            statement.bindString(6, article.getUrl());
+            if (articleId == -1) {
+                articleId = statement.executeInsert();
+            } else {
+                statement.execute();
+                mDeleteArticleAuthors.bindLong(1, articleId);
+                mDeleteArticleAuthors.execute();
+            }
+
+            List<String> authors = article.getAuthors();
+            for (int i = 0; i < authors.size(); i++) {
+                long authorId = selectId(mSelectAuthor, authors.get(i));
+                if (authorId == -1) {
+                    mInsertAuthor.bindString(1, authors.get(i));
+                    authorId = mInsertAuthor.executeInsert();
+                }
+                mInsertArticleAuthor.bindLong(1, articleId);
+                mInsertArticleAuthor.bindLong(2, authorId);
+                mInsertArticleAuthor.bindLong(3, i);
+                mInsertArticleAuthor.executeInsert();
+            }
+
+            // Keep the full-text index in step with the stored article
+            mDeleteSearchEntry.bindLong(1, articleId);
+            mDeleteSearchEntry.execute();
+            mInsertSearchEntry.bindLong(1, articleId);
+            mInsertSearchEntry.bindString(2, normalize(article.getArticleTitle()));
+            mInsertSearchEntry.bindString(3, normalize(article.getAuthorsLine()));
+            mInsertSearchEntry.bindString(4, normalize(article.getSectionName()));
+            mInsertSearchEntry.executeInsert();
+
+            return articleId;
+        }
+
+        private static long selectId(SQLiteStatement statement, String key) {
+            statement.bindString(1, key);
+            try {
+                return statement.simpleQueryForLong();
+            } catch (SQLiteDoneException e) {
+                // No row matches the key
+                return -1;
+            }
+        }
+
+        void close() {
+            mSelectArticle.close();
+            mInsertArticle.close();
+            mUpdateArticle.close();
+            mDeleteArticleAuthors.close();
+            mSelectAuthor.close();
+            mInsertAuthor.close();
+            mInsertArticleAuthor.close();
+            mDeleteSearchEntry.close();
+            mInsertSearchEntry.close();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.provider.BaseColumns;
+
+/**
+ * Schema of the database storing the articles.
+ * Articles and authors are stored once, and each cached page of a request
+ * references its articles in order.
+ */
+public final class ArticleContract {
+
+    private ArticleContract() {
+    }
+
+    /**
+     * A cached response page, identified by its request URL
+     */
+    public static final class PageEntry implements BaseColumns {
+        public static final String TABLE_NAME = "pages";
+
+        public static final String COLUMN_URL = "url";
+        public static final String COLUMN_ETAG = "etag";
+        public static final String COLUMN_LAST_MODIFIED = "last_modified";
+        public static final String COLUMN_BODY_SIZE = "body_size";
+        public static final String COLUMN_TIMESTAMP = "timestamp";
+
+        private PageEntry() {
+        }
+    }
+
+    /**
+     * The position of an article in a page
+     */
+    public static final class PageArticleEntry implements BaseColumns {
+        public static final String TABLE_NAME = "page_articles";
+
+        public static final String COLUMN_PAGE_URL = "page_url";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_ARTICLE_ID = "article_id";
+
+        private PageArticleEntry() {
+        }
+    }
+
+    public static final class ArticleEntry implements BaseColumns {
+        public static final String TABLE_NAME = "articles";
+
+        public static final String COLUMN_URL = "url";
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_SECTION = "section";
+        public static final String COLUMN_PUBLICATION_DATE = "publication_date";
+        public static final String COLUMN_PUBLICATION_TIME = "publication_time";
+        public static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+
+        private ArticleEntry() {
+        }
+    }
+
+    /**
+     * Full-text index over the articles, whose docid is the id of the indexed article
+     */
+    public static final class ArticleSearchEntry {
+        public static final String TABLE_NAME = "articles_fts";
+
+        public static final String COLUMN_DOCID = "docid";
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_AUTHORS = "authors";
+        public static final String COLUMN_SECTION = "section";
+
+        private ArticleSearchEntry() {
+        }
+    }
+
+    public static final class AuthorEntry implements BaseColumns {
+        public static final String TABLE_NAME = "authors";
+
+        public static final String COLUMN_NAME = "name";
+
+        private AuthorEntry() {
+        }
+    }
+
+    /**
+     * The position of an author in the authors of an article
+     */
+    public static final class ArticleAuthorEntry implements BaseColumns {
+        public static final String TABLE_NAME = "article_authors";
+
+        public static final String COLUMN_ARTICLE_ID = "article_id";
+        public static final String COLUMN_AUTHOR_ID = "author_id";
+        public static final String COLUMN_POSITION = "position";
+
+        private ArticleAuthorEntry() {
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.hjalmar.android.newsapp.data.ArticleContract.ArticleAuthorEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.ArticleEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.ArticleSearchEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.AuthorEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.PageArticleEntry;
+import com.hjalmar.android.newsapp.data.ArticleContract.PageEntry;
+
+import java.io.File;
+
+/**
+ * Creates and upgrades the database described by {@link ArticleContract}.
+ */
+public class ArticleDbHelper extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "articles.db";
+
+    private static final int DATABASE_VERSION = 4;
+
+    /**
+     * Directory of the file based cache this database replaces
+     */
+    private static final String LEGACY_CACHE_DIR_NAME = "articles";
+
+    private final Context mContext;
+
+    public ArticleDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.mContext = context;
+
+        // Let the list be read while a sync writes to the database
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + PageEntry.TABLE_NAME + " ("
+                + PageEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + PageEntry.COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                + PageEntry.COLUMN_ETAG + " TEXT, "
+                + PageEntry.COLUMN_LAST_MODIFIED + " TEXT, "
+                + PageEntry.COLUMN_BODY_SIZE + " INTEGER NOT NULL DEFAULT 0, "
+                + PageEntry.COLUMN_TIMESTAMP + " INTEGER NOT NULL);");
+        db.execSQL("CREATE INDEX pages_timestamp_index ON " + PageEntry.TABLE_NAME
+                + " (" + PageEntry.COLUMN_TIMESTAMP + ");");
+
+        db.execSQL("CREATE TABLE " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + ArticleEntry.COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                + ArticleEntry.COLUMN_TITLE + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_SECTION + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_PUBLICATION_DATE + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_PUBLICATION_TIME + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_THUMBNAIL_URL + " TEXT);");
+        db.execSQL("CREATE INDEX articles_publication_time_index ON " + ArticleEntry.TABLE_NAME
+                + " (" + ArticleEntry.COLUMN_PUBLICATION_TIME + ");");
+        db.execSQL("CREATE INDEX articles_section_index ON " + ArticleEntry.TABLE_NAME
+                + " (" + ArticleEntry.COLUMN_SECTION + ", " + ArticleEntry.COLUMN_PUBLICATION_TIME + ");");
+
+        db.execSQL("CREATE VIRTUAL TABLE " + ArticleSearchEntry.TABLE_NAME + " USING fts4("
+                + ArticleSearchEntry.COLUMN_TITLE + ", "
+                + ArticleSearchEntry.COLUMN_AUTHORS + ", "
+                + ArticleSearchEntry.COLUMN_SECTION + ");");
+
+        db.execSQL("CREATE TABLE " + PageArticleEntry.TABLE_NAME + " ("
+                + PageArticleEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + PageArticleEntry.COLUMN_PAGE_URL + " TEXT NOT NULL, "
+                + PageArticleEntry.COLUMN_POSITION + " INTEGER NOT NULL, "
+                + PageArticleEntry.COLUMN_ARTICLE_ID + " INTEGER NOT NULL);");
+        db.execSQL("CREATE INDEX page_articles_page_index ON " + PageArticleEntry.TABLE_NAME
+                + " (" + PageArticleEntry.COLUMN_PAGE_URL + ", " + PageArticleEntry.COLUMN_POSITION + ");");
+        db.execSQL("CREATE INDEX page_articles_article_index ON " + PageArticleEntry.TABLE_NAME
+                + " (" + PageArticleEntry.COLUMN_ARTICLE_ID + ");");
+
+        db.execSQL("CREATE TABLE " + AuthorEntry.TABLE_NAME + " ("
+                + AuthorEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + AuthorEntry.COLUMN_NAME + " TEXT NOT NULL UNIQUE);");
+
+        db.execSQL("CREATE TABLE " + ArticleAuthorEntry.TABLE_NAME + " ("
+                + ArticleAuthorEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + ArticleAuthorEntry.COLUMN_ARTICLE_ID + " INTEGER NOT NULL, "
+                + ArticleAuthorEntry.COLUMN_AUTHOR_ID + " INTEGER NOT NULL, "
+                + ArticleAuthorEntry.COLUMN_POSITION + " INTEGER NOT NULL);");
+        db.execSQL("CREATE INDEX article_authors_article_index ON " + ArticleAuthorEntry.TABLE_NAME
+                + " (" + ArticleAuthorEntry.COLUMN_ARTICLE_ID + ", " + ArticleAuthorEntry.COLUMN_POSITION + ");");
+        db.execSQL("CREATE INDEX article_authors_author_index ON " + ArticleAuthorEntry.TABLE_NAME
+                + " (" + ArticleAuthorEntry.COLUMN_AUTHOR_ID + ");");
+
+        deleteLegacyCache();
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The database only holds cached data, which can be downloaded again
+        db.execSQL("DROP TABLE IF EXISTS " + PageEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + PageArticleEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + ArticleEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + ArticleSearchEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + AuthorEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + ArticleAuthorEntry.TABLE_NAME);
+        onCreate(db);
+    }
+
+    /**
+     * Delete the files of the cache used before the database existed.
+     */
+    private void deleteLegacyCache() {
+        File[] files = new File(mContext.getCacheDir(), LEGACY_CACHE_DIR_NAME).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+}
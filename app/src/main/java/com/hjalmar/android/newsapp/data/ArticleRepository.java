@@ -0,0 +1,293 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import com.hjalmar.android.newsapp.concurrent.AppExecutors;
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.metrics.Metrics;
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.network.ConnectivityMonitor;
+import com.hjalmar.android.newsapp.network.NetworkQuality;
+import com.hjalmar.android.newsapp.util.ArticleMerger;
+import com.hjalmar.android.newsapp.util.ArticleQuery;
+import com.hjalmar.android.newsapp.util.DateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the pages of an {@link ArticleQuery}, from the {@link ArticleCache} or from the network.
+ * The requests for the topics of a query are run concurrently and their results merged
+ * by publication date, so a page takes about as long as the slowest topic.
+ * When the newest articles come first, a stored first page is refreshed by requesting only
+ * the articles published from its newest one on, so the traffic of a refresh grows with
+ * the new content rather than with the page.
+ * Stored pages are revalidated less often on a metered or slow network, and while offline
+ * no request is made at all: the loads fall back to the stored pages until the connection returns.
+ */
+public class ArticleRepository {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleRepository.class.getSimpleName();
+
+    private static final int FIRST_PAGE = 1;
+
+    private static ArticleRepository sInstance;
+
+    private final ArticleCache mCache;
+
+    private final FetchCoordinator mFetchCoordinator;
+
+    private final ConnectivityMonitor mConnectivityMonitor;
+
+    /**
+     * How the cache is used when loading the page of a topic
+     */
+    public enum CachePolicy {
+        /**
+         * Use the cached page even if stale, request it only when not cached
+         */
+        CACHE_FIRST,
+        /**
+         * Use the cached page only if fresh, revalidate it otherwise
+         */
+        FRESH_CACHE,
+        /**
+         * Always revalidate the cached page
+         */
+        NETWORK
+    }
+
+    /**
+     * A page of articles, as loaded for a topic or merged from all of them
+     */
+    public static class Page {
+
+        private final List<Article> mArticles;
+        private final boolean mLastPage;
+        private final boolean mStale;
+
+        Page(List<Article> articles, boolean lastPage, boolean stale) {
+            this.mArticles = articles;
+            this.mLastPage = lastPage;
+            this.mStale = stale;
+        }
+
+        public List<Article> getArticles() {
+            return mArticles;
+        }
+
+        /**
+         * Return true if no topic has pages after this one.
+         */
+        public boolean isLastPage() {
+            return mLastPage;
+        }
+
+        /**
+         * Return true if the page, or part of it, comes from a cache entry that should be revalidated.
+         */
+        public boolean isStale() {
+            return mStale;
+        }
+    }
+
+    private ArticleRepository(ArticleCache cache, ConnectivityMonitor connectivityMonitor) {
+        this.mCache = cache;
+        this.mFetchCoordinator = new FetchCoordinator(cache);
+        this.mConnectivityMonitor = connectivityMonitor;
+    }
+
+    public static synchronized ArticleRepository getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleRepository(ArticleCache.getInstance(context), ConnectivityMonitor.getInstance(context));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Load the given page of every topic of the query, concurrently on the
+     * {@link AppExecutors#network()} pool, and merge them into a single page.
+     * Topics that fail are left out, and null is returned only if all of them fail.
+     * This method blocks until the pages are loaded and must not be called on the main thread,
+     * nor on the {@link AppExecutors#compute()} pool, whose threads it would hold for the requests.
+     *
+     * Identical requests already in flight, e.g. for a previous load of the same page, are joined.
+     *
+     * @param seenUrls the urls of the articles already shown, which are left out of the page, or null
+     * @param priority the priority of the requests, ahead of or behind the other loads
+     * @param signal   signal cancelling the load, or null
+     */
+    public Page loadPage(ArticleQuery query, final int pageNumber, final CachePolicy cachePolicy, Set<String> seenUrls,
+                         Priority priority, CancellationSignal signal) {
+        final List<String> urls = query.getUrls();
+        final int pageSize = query.getPageSize();
+        // New articles only go at the top of the first page when the newest come first
+        final boolean incremental = pageNumber == FIRST_PAGE && cachePolicy == CachePolicy.NETWORK && query.isNewestFirst();
+        if (urls.isEmpty()) {
+            return null;
+        }
+
+        // A signal only has one listener, so each topic gets its own, cancelled along with the given one
+        final List<CancellationSignal> topicSignals = new ArrayList<>(urls.size());
+        List<Future<Page>> futures = new ArrayList<>(urls.size());
+        for (final String url : urls) {
+            final CancellationSignal topicSignal = signal != null ? new CancellationSignal() : null;
+            if (topicSignal != null) {
+                topicSignals.add(topicSignal);
+            }
+            futures.add(AppExecutors.network().submit(priority, new Callable<Page>() {
+                @Override
+                public Page call() {
+                    return loadTopicPage(query.pageUrl(url, pageNumber), pageSize, cachePolicy, incremental, topicSignal);
+                }
+            }));
+        }
+        if (signal != null) {
+            signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+                    for (CancellationSignal topicSignal : topicSignals) {
+                        topicSignal.cancel();
+                    }
+                }
+            });
+        }
+
+        List<Page> topicPages = new ArrayList<>(urls.size());
+        try {
+            for (Future<Page> future : futures) {
+                try {
+                    topicPages.add(future.get());
+                } catch (ExecutionException e) {
+                    Log.e(LOG_TAG, "Problem loading a topic page", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            // The topics still queued are dropped. The running ones are left through their signals,
+            // and not interrupted, as other loads may be waiting for their requests
+            for (Future<Page> future : futures) {
+                future.cancel(false);
+            }
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (signal != null) {
+                signal.setOnCancelListener(null);
+            }
+        }
+
+        List<List<Article>> lists = new ArrayList<>(topicPages.size());
+        boolean isLastPage = true;
+        boolean isStale = false;
+        for (Page topicPage : topicPages) {
+            if (topicPage == null) {
+                // The topic may still have more pages
+                isLastPage = false;
+                continue;
+            }
+            lists.add(topicPage.getArticles());
+            isLastPage &= topicPage.isLastPage();
+            isStale |= topicPage.isStale();
+        }
+
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        return new Page(ArticleMerger.merge(lists, query.getOrder(), seenUrls), isLastPage, isStale);
+    }
+
+    /**
+     * Return true if the given page of every topic of the query is stored in the {@link ArticleCache}.
+     * This method performs disk I/O and must not be called on the main thread.
+     */
+    public boolean isStored(ArticleQuery query, int pageNumber) {
+        for (String url : query.getUrls()) {
+            if (!mCache.contains(query.pageUrl(url, pageNumber))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until the pages loaded so far have been stored in the {@link ArticleCache},
+     * as they are stored in the background once loaded.
+     * Return false if the thread has been interrupted while waiting.
+     */
+    public boolean awaitStores() {
+        try {
+            mFetchCoordinator.awaitStores();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Load a page of a single topic according to the given cache policy and the current network.
+     * A stale cached page is used if the network request fails, or can't be made while offline.
+     *
+     * @param incremental true if the cached page can be updated with the articles published since
+     *                    its newest one, rather than requested again as a whole
+     */
+    private Page loadTopicPage(String pageUrl, int pageSize, CachePolicy cachePolicy, boolean incremental,
+                               CancellationSignal signal) {
+        ArticleCache.Entry cachedEntry = mCache.get(pageUrl);
+        final NetworkQuality quality = mConnectivityMonitor.getQuality();
+        final boolean isFresh = cachedEntry != null && cachedEntry.isFresh(quality.getFreshTtl());
+        if (cachedEntry != null && (cachePolicy == CachePolicy.CACHE_FIRST
+                || (cachePolicy == CachePolicy.FRESH_CACHE && isFresh))) {
+            Metrics.increment(Metrics.Counter.CACHE_HIT);
+            return topicPage(cachedEntry.getArticles(), pageSize, !isFresh);
+        }
+
+        if (!quality.isConnected()) {
+            // The request would only fail after its retries, the load is repeated once connected
+            return cachedEntry != null ? topicPage(cachedEntry.getArticles(), pageSize, true) : null;
+        }
+
+        final long highWaterMark = cachedEntry != null ? getHighWaterMark(cachedEntry.getArticles()) : DateUtils.INVALID_TIME;
+        ArticleCache.Entry entry;
+        if (incremental && highWaterMark != DateUtils.INVALID_TIME) {
+            // Only the articles from the newest one stored on are requested
+            entry = mFetchCoordinator.fetchDelta(pageUrl, ArticleQuery.deltaUrl(pageUrl, highWaterMark), cachedEntry,
+                    pageSize, signal);
+        } else {
+            // The cached entry, if any, makes the request conditional
+            entry = mFetchCoordinator.fetch(pageUrl, cachedEntry, signal);
+        }
+        if (entry != null) {
+            return topicPage(entry.getArticles(), pageSize, false);
+        }
+
+        return cachedEntry != null ? topicPage(cachedEntry.getArticles(), pageSize, true) : null;
+    }
+
+    /**
+     * Return the publication time of the newest of the given articles, or {@link DateUtils#INVALID_TIME}.
+     */
+    static long getHighWaterMark(List<Article> articles) {
+        long highWaterMark = DateUtils.INVALID_TIME;
+        for (Article article : articles) {
+            highWaterMark = Math.max(highWaterMark, article.getPublicationTime());
+        }
+        return highWaterMark;
+    }
+
+    private static Page topicPage(List<Article> articles, int pageSize, boolean isStale) {
+        // A page shorter than the page size marks the end of the topic
+        return new Page(articles, articles.size() < pageSize, isStale);
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Size bounded cache of files, one per URL, e.g. downloaded images or article bodies.
+ * Files are evicted by last access, which is tracked through their modification time.
+ */
+public class DiskCache {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = DiskCache.class.getSimpleName();
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final FileFilter COMPLETE_FILES = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            // The keys are hexadecimal, only the temporary files hold the suffix
+            return !file.getName().contains(TEMP_FILE_SUFFIX);
+        }
+    };
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+
+    public DiskCache(File directory, long maxBytes) {
+        this.mDirectory = directory;
+        this.mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Return the file holding the content of the given URL, or null if it is not cached.
+     */
+    public File get(String url) {
+        File file = new File(mDirectory, keyOf(url));
+        if (!file.exists()) {
+            return null;
+        }
+        // Mark the file as recently used
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Store the content read from the given stream and return its file.
+     * A partially written file is never visible, as it is renamed only once complete.
+     *
+     * @throws InterruptedIOException if the thread is interrupted before the content is read
+     */
+    public File put(String url, InputStream inputStream) throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Can't create " + mDirectory);
+        }
+
+        final String key = keyOf(url);
+        File tempFile = new File(mDirectory, key + TEMP_FILE_SUFFIX + Thread.currentThread().getId());
+        OutputStream outputStream = new FileOutputStream(tempFile);
+        boolean isComplete = false;
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("Interrupted while storing " + url);
+                }
+            }
+            isComplete = true;
+        } finally {
+            outputStream.close();
+            if (!isComplete) {
+                tempFile.delete();
+            }
+        }
+
+        File file = new File(mDirectory, key);
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Can't store " + file);
+        }
+
+        trim();
+        return file;
+    }
+
+    /**
+     * Delete the least recently used files until the cache fits its maximum size.
+     * The files other threads are still writing are neither counted nor deleted.
+     */
+    private synchronized void trim() {
+        File[] files = mDirectory.listFiles(COMPLETE_FILES);
+        if (files == null) {
+            return;
+        }
+
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        if (totalBytes <= mMaxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                final long firstModified = first.lastModified();
+                final long secondModified = second.lastModified();
+                return firstModified < secondModified ? -1 : (firstModified == secondModified ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < files.length && totalBytes > mMaxBytes; i++) {
+            final long length = files[i].length();
+            if (files[i].delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    /**
+     * Return a file name for the URL, as URLs may be longer than file names and hold any character.
+     */
+    private static String keyOf(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                sb.append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            Log.e(LOG_TAG, "Can't hash the URL", e);
+            return String.valueOf(url.hashCode());
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.model.ArticleCodec;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The first articles of the last feed shown, stored in a small {@link ArticleCodec} file so that
+ * they can be read on the main thread when the app starts and shown in the first frame,
+ * before the loader and the database are even initialized.
+ */
+public final class FeedSnapshot {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = FeedSnapshot.class.getSimpleName();
+
+    private static final String FILE_NAME = "feed.snapshot";
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The number of articles stored, more than fit in a screen
+     */
+    private static final int MAX_ARTICLES = 30;
+
+    /**
+     * Snapshots are written one at a time, off the main thread
+     */
+    private static final ExecutorService sWriteExecutor = Executors.newSingleThreadExecutor();
+
+    private FeedSnapshot() {
+    }
+
+    /**
+     * Return the articles of the snapshot saved for the given query key, or an empty list
+     * if there is none or it has been saved for another query.
+     * This method maps a file of a few kilobytes and is meant to be called on the main thread.
+     */
+    public static List<Article> load(Context context, String queryKey) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (!file.exists()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            // The articles are decoded straight from the pages of the file mapped in memory
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), queryKey);
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the feed snapshot", e);
+            return Collections.emptyList();
+        } catch (RuntimeException e) {
+            // A corrupt snapshot would otherwise fail again on every launch
+            Log.e(LOG_TAG, "Corrupt feed snapshot, deleting it", e);
+            file.delete();
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Save the first articles of the given list in background, replacing the previous snapshot
+     * unless it already holds the same articles, e.g. when the same feed is delivered again.
+     */
+    public static void save(Context context, final String queryKey, List<Article> articles) {
+        final File directory = context.getFilesDir();
+        final List<Article> snapshotArticles = new ArrayList<>(articles.subList(0, Math.min(MAX_ARTICLES, articles.size())));
+        sWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(directory, queryKey, snapshotArticles);
+            }
+        });
+    }
+
+    /**
+     * Write the snapshot, unless the file already holds the same bytes.
+     * Return true if the file has been written.
+     */
+    static boolean write(File directory, String queryKey, List<Article> articles) {
+        File tempFile = new File(directory, FILE_NAME + ".tmp");
+        try {
+            byte[] bytes = encode(queryKey, articles);
+            // Reading a few kilobytes is much cheaper than writing and syncing them
+            if (Arrays.equals(bytes, read(new File(directory, FILE_NAME)))) {
+                return false;
+            }
+
+            FileOutputStream outputStream = new FileOutputStream(tempFile);
+            try {
+                outputStream.write(bytes);
+                // The content must reach the disk before the rename does, or a power loss could leave an empty file
+                outputStream.getFD().sync();
+            } finally {
+                outputStream.close();
+            }
+            // The old snapshot is replaced at once, it is never seen half written
+            if (!tempFile.renameTo(new File(directory, FILE_NAME))) {
+                Log.e(LOG_TAG, "Problem replacing the feed snapshot");
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem writing the feed snapshot", e);
+            tempFile.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Return the content of the given file, or null if there is none.
+     */
+    private static byte[] read(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) randomAccessFile.length()];
+            randomAccessFile.readFully(bytes);
+            return bytes;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Return the snapshot file content: the format version, the query key and the articles
+     * in the format of {@link ArticleCodec}.
+     */
+    static byte[] encode(String queryKey, List<Article> articles) {
+        final byte[] keyBytes = queryKey.getBytes(UTF_8);
+        final byte[] articleBytes = ArticleCodec.encode(articles);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + keyBytes.length + articleBytes.length);
+        buffer.putInt(FORMAT_VERSION).putInt(keyBytes.length).put(keyBytes).put(articleBytes);
+        return buffer.array();
+    }
+
+    static List<Article> decode(ByteBuffer buffer, String queryKey) throws IOException {
+        if (buffer.remaining() < 8 || buffer.getInt() != FORMAT_VERSION) {
+            return Collections.emptyList();
+        }
+        final byte[] keyBytes = queryKey.getBytes(UTF_8);
+        if (buffer.getInt() != keyBytes.length || buffer.remaining() < keyBytes.length) {
+            return Collections.emptyList();
+        }
+        for (byte keyByte : keyBytes) {
+            if (buffer.get() != keyByte) {
+                return Collections.emptyList();
+            }
+        }
+        return ArticleCodec.decode(buffer);
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.hjalmar.android.newsapp.data;
+
+import android.os.CancellationSignal;
+
+import com.hjalmar.android.newsapp.concurrent.AppExecutors;
+import com.hjalmar.android.newsapp.metrics.Metrics;
+import com.hjalmar.android.newsapp.util.ArticleMerger;
+import com.hjalmar.android.newsapp.util.QueryUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces the network requests for the same page URL, whether for the whole page or for its delta.
+ * The first caller performs the request and hands its result over to the
+ * {@link AppExecutors#disk()} thread, which stores it in the {@link ArticleCache}.
+ * The callers arriving before the result is stored get that same result instead of
+ * starting a request of their own. Callers may leave through their {@link CancellationSignal},
+ * and the connection is cancelled once all of them have left.
+ */
+class FetchCoordinator {
+
+    private final ArticleCache mCache;
+
+    /**
+     * The requests in flight, by page URL
+     */
+    private final Map<String, Call> mCalls = new HashMap<>();
+
+    FetchCoordinator(ArticleCache cache) {
+        this.mCache = cache;
+    }
+
+    /**
+     * Request the given page, conditionally if a cached entry is given, or wait for the identical
+     * request already in flight. Return the new cache entry, or null if the request failed
+     * or the caller has been cancelled.
+     *
+     * @param signal signal cancelling the wait of this caller, or null if it can't be cancelled
+     */
+    ArticleCache.Entry fetch(String pageUrl, ArticleCache.Entry cachedEntry, CancellationSignal signal) {
+        return fetch(pageUrl, null, cachedEntry, 0, signal);
+    }
+
+    /**
+     * Request only the articles of the given page published since the cached entry was stored,
+     * through the delta URL, and return the cached entry updated with them, or wait for
+     * the request of that page already in flight.
+     *
+     * @param signal signal cancelling the wait of this caller, or null if it can't be cancelled
+     * @see ArticleMerger#applyDelta(List, List, int)
+     */
+    ArticleCache.Entry fetchDelta(String pageUrl, String deltaUrl, ArticleCache.Entry cachedEntry, int pageSize,
+                                  CancellationSignal signal) {
+        return fetch(pageUrl, deltaUrl, cachedEntry, pageSize, signal);
+    }
+
+    private ArticleCache.Entry fetch(final String pageUrl, String deltaUrl, ArticleCache.Entry cachedEntry, int pageSize,
+                                     CancellationSignal signal) {
+        final Call call;
+        final boolean isOwner;
+        synchronized (mCalls) {
+            Call inFlightCall = mCalls.get(pageUrl);
+            isOwner = inFlightCall == null;
+            call = isOwner ? new Call() : inFlightCall;
+            if (isOwner) {
+                mCalls.put(pageUrl, call);
+            }
+            call.mSubscribers++;
+        }
+
+        if (signal != null) {
+            signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+                    unsubscribe(pageUrl, call);
+                }
+            });
+        }
+
+        boolean isHandedOver = false;
+        try {
+            if (!isOwner) {
+                Metrics.increment(Metrics.Counter.COALESCED);
+                return call.await(signal);
+            }
+
+            // The request is cancelled through the signal of the call, not the one of its owner
+            final ArticleCache.Entry entry = deltaUrl != null
+                    ? requestDelta(deltaUrl, cachedEntry, pageSize, call.mSignal)
+                    : QueryUtils.fetchArticleData(pageUrl, cachedEntry, call.mSignal);
+            call.complete(entry);
+            if (entry == null) {
+                return null;
+            }
+
+            // The caller doesn't wait for the write, the call serves the result until it is stored
+            AppExecutors.disk().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        mCache.put(pageUrl, entry);
+                    } finally {
+                        remove(pageUrl, call);
+                    }
+                }
+            });
+            isHandedOver = true;
+            return entry;
+        } finally {
+            if (isOwner && !isHandedOver) {
+                // Also when the request threw, or the callers waiting without a signal would wait forever
+                if (!call.isDone()) {
+                    call.complete(null);
+                }
+                remove(pageUrl, call);
+            }
+            if (signal != null) {
+                signal.setOnCancelListener(null);
+            }
+        }
+    }
+
+    private static ArticleCache.Entry requestDelta(String deltaUrl, ArticleCache.Entry cachedEntry, int pageSize,
+                                                   CancellationSignal signal) {
+        Metrics.increment(Metrics.Counter.DELTA);
+        ArticleCache.Entry deltaEntry = QueryUtils.fetchArticleData(deltaUrl, null, signal);
+        if (deltaEntry == null) {
+            return null;
+        }
+        // The validators of the page don't match its updated content anymore
+        return new ArticleCache.Entry(ArticleMerger.applyDelta(deltaEntry.getArticles(), cachedEntry.getArticles(), pageSize),
+                null, null, cachedEntry.getBodySize(), deltaEntry.getTimestamp());
+    }
+
+    /**
+     * Wait until the results handed over so far have been stored.
+     */
+    void awaitStores() throws InterruptedException {
+        try {
+            AppExecutors.disk().submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            // An empty task can't fail
+        }
+    }
+
+    private void remove(String pageUrl, Call call) {
+        synchronized (mCalls) {
+            if (mCalls.get(pageUrl) == call) {
+                mCalls.remove(pageUrl);
+            }
+        }
+    }
+
+    /**
+     * Remove a cancelled caller from the call, cancelling the request if it was the last one.
+     */
+    private void unsubscribe(String pageUrl, Call call) {
+        boolean cancelCall = false;
+        synchronized (mCalls) {
+            call.mSubscribers--;
+            if (call.mSubscribers == 0 && !call.isDone()) {
+                // Later callers must not join a request being cancelled
+                remove(pageUrl, call);
+                cancelCall = true;
+            }
+        }
+
+        if (cancelCall) {
+            call.mSignal.cancel();
+        }
+        call.wakeUp();
+    }
+
+    /**
+     * A request in flight and the number of callers waiting for it
+     */
+    private static class Call {
+
+        private final CancellationSignal mSignal = new CancellationSignal();
+
+        /**
+         * Guarded by the map of the calls
+         */
+        private int mSubscribers;
+
+        private boolean mDone;
+        private ArticleCache.Entry mEntry;
+
+        synchronized boolean isDone() {
+            return mDone;
+        }
+
+        synchronized void complete(ArticleCache.Entry entry) {
+            mEntry = entry;
+            mDone = true;
+            notifyAll();
+        }
+
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        /**
+         * Wait until the call completes or the caller is cancelled.
+         */
+        synchronized ArticleCache.Entry await(CancellationSignal signal) {
+            while (!mDone && (signal == null || !signal.isCanceled())) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return mDone ? mEntry : null;
+        }
+    }
+
+}
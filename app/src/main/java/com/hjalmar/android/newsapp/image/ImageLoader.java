@@ -0,0 +1,301 @@
+package com.hjalmar.android.newsapp.image;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.concurrent.PriorityExecutor;
+import com.hjalmar.android.newsapp.data.DiskCache;
+import com.hjalmar.android.newsapp.network.HttpClient;
+import com.hjalmar.android.newsapp.network.HttpResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Loads images into {@link ImageView}s through two cache levels: an LRU of decoded bitmaps
+ * bounded to a fraction of the memory of the app, and a {@link DiskCache} of the
+ * downloaded files. Images are downloaded and decoded on a background pool, downsampled
+ * to the size they are displayed at. The images of the rows shown go ahead of the prefetched ones.
+ * All the public methods must be called on the main thread.
+ */
+public class ImageLoader {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ImageLoader.class.getSimpleName();
+
+    private static final String DISK_CACHE_DIR_NAME = "thumbnails";
+
+    private static final long DISK_CACHE_MAX_BYTES = 20 * 1024 * 1024;
+
+    /**
+     * The fraction of the memory class of the app used by the decoded bitmaps
+     */
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    private static final int DECODE_THREADS = 3;
+
+    private static ImageLoader sInstance;
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+
+    private final DiskCache mDiskCache;
+
+    private final PriorityExecutor mExecutor = new PriorityExecutor("images", DECODE_THREADS);
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The requests in progress, by URL
+     */
+    private final Map<String, Request> mRequests = new HashMap<>();
+
+    /**
+     * The URL each view is waiting for
+     */
+    private final Map<ImageView, String> mTargets = new WeakHashMap<>();
+
+    private ImageLoader(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        final int memoryClassMegabytes = activityManager != null ? activityManager.getMemoryClass() : 16;
+        mMemoryCache = new LruCache<String, Bitmap>(memoryClassMegabytes * 1024 * 1024 / MEMORY_CACHE_FRACTION) {
+            @Override
+            protected int sizeOf(String url, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        mDiskCache = new DiskCache(new File(context.getCacheDir(), DISK_CACHE_DIR_NAME), DISK_CACHE_MAX_BYTES);
+    }
+
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ImageLoader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Display the image of the given URL in the view, downsampled to the given size,
+     * replacing the request the view may be waiting for. A null URL clears the view.
+     */
+    public void load(ImageView view, String url, int width, int height) {
+        cancel(view);
+
+        Bitmap bitmap = url != null ? mMemoryCache.get(url) : null;
+        view.setImageBitmap(bitmap);
+        if (url == null || bitmap != null) {
+            return;
+        }
+
+        mTargets.put(view, url);
+        Request request = mRequests.get(url);
+        if (request == null) {
+            start(url, width, height, false);
+        } else if (request.mTargets == 0 && mExecutor.remove((Runnable) request.mFuture)) {
+            // A prefetch still queued behind the others, requested again ahead of them
+            start(url, width, height, false).mPrefetch = true;
+        } else {
+            request.mTargets++;
+        }
+    }
+
+    /**
+     * Load the image of the given URL in the memory cache, so it is ready when its view is bound.
+     * Prefetched images are not cancelled with the views.
+     */
+    public void prefetch(String url, int width, int height) {
+        if (url == null || mMemoryCache.get(url) != null) {
+            return;
+        }
+        Request request = mRequests.get(url);
+        if (request == null) {
+            start(url, width, height, true);
+        } else {
+            request.mPrefetch = true;
+        }
+    }
+
+    /**
+     * Stop waiting for the image requested for the view, e.g. because the view has been recycled.
+     * The download is cancelled if no other view waits for it.
+     */
+    public void cancel(ImageView view) {
+        final String url = mTargets.remove(view);
+        if (url == null) {
+            return;
+        }
+        Request request = mRequests.get(url);
+        if (request != null && --request.mTargets == 0 && !request.mPrefetch) {
+            request.cancel();
+            mRequests.remove(url);
+        }
+    }
+
+    private Request start(final String url, final int width, final int height, boolean prefetch) {
+        final Request request = new Request();
+        request.mTargets = prefetch ? 0 : 1;
+        request.mPrefetch = prefetch;
+        mRequests.put(url, request);
+        request.mFuture = mExecutor.submit(prefetch ? Priority.PREFETCH : Priority.VISIBLE, new Callable<Void>() {
+            @Override
+            public Void call() {
+                final Bitmap bitmap = fetch(url, request, width, height);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(url, request, bitmap);
+                    }
+                });
+                return null;
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Set the bitmap on the views still waiting for it. Runs on the main thread.
+     */
+    private void deliver(String url, Request request, Bitmap bitmap) {
+        if (mRequests.get(url) != request) {
+            // The request has been cancelled
+            return;
+        }
+        mRequests.remove(url);
+        if (bitmap == null) {
+            return;
+        }
+
+        mMemoryCache.put(url, bitmap);
+        List<ImageView> views = new ArrayList<>();
+        for (Map.Entry<ImageView, String> target : mTargets.entrySet()) {
+            if (url.equals(target.getValue())) {
+                views.add(target.getKey());
+            }
+        }
+        for (ImageView view : views) {
+            mTargets.remove(view);
+            view.setImageBitmap(bitmap);
+        }
+    }
+
+    /**
+     * Return the image from the disk cache, downloading it first if needed, or null if it can't be loaded.
+     * Runs on the background pool.
+     */
+    private Bitmap fetch(String url, Request request, int width, int height) {
+        try {
+            File file = mDiskCache.get(url);
+            if (file == null) {
+                file = download(url, request);
+            }
+            if (file == null || request.isCancelled()) {
+                return null;
+            }
+            return decodeSampledBitmap(file, width, height);
+        } catch (IOException e) {
+            if (!request.isCancelled()) {
+                Log.e(LOG_TAG, "Problem loading the image " + url, e);
+            }
+            return null;
+        }
+    }
+
+    private File download(String url, Request request) throws IOException {
+        HttpResponse response = HttpClient.get(new URL(url), null, null);
+        request.setResponse(response);
+        try {
+            if (!response.isSuccessful()) {
+                Log.e(LOG_TAG, "Http response code not successful: " + response.getCode() + " for " + url);
+                return null;
+            }
+            return mDiskCache.put(url, response.getBody());
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Decode the image file with the largest power of two sample size that keeps it
+     * at least as large as the requested size, so no more pixels than needed are held in memory.
+     */
+    static Bitmap decodeSampledBitmap(File file, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        // Thumbnails are opaque photos, which don't need an alpha channel nor full color depth
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeFile(file.getPath(), options);
+    }
+
+    static int calculateInSampleSize(int imageWidth, int imageHeight, int width, int height) {
+        int inSampleSize = 1;
+        if (width <= 0 || height <= 0) {
+            return inSampleSize;
+        }
+        while (imageWidth / (inSampleSize * 2) >= width && imageHeight / (inSampleSize * 2) >= height) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * A download in progress and the number of views waiting for it. Only the response
+     * and the cancellation are accessed on the background pool, the rest on the main thread.
+     */
+    private static class Request {
+        private Future<?> mFuture;
+        private int mTargets;
+        private boolean mPrefetch;
+        private volatile HttpResponse mResponse;
+        private volatile boolean mCancelled;
+
+        /**
+         * Interrupting the thread doesn't stop a blocking read of the connection,
+         * so the response is aborted as well.
+         */
+        void cancel() {
+            mCancelled = true;
+            mFuture.cancel(true);
+            HttpResponse response = mResponse;
+            if (response != null) {
+                response.cancel();
+            }
+        }
+
+        /**
+         * Keep the response so that it can be cancelled, or cancel it right away
+         * if the request was cancelled while connecting. Runs on the background pool.
+         */
+        void setResponse(HttpResponse response) {
+            mResponse = response;
+            if (mCancelled) {
+                response.cancel();
+            }
+        }
+
+        boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.hjalmar.android.newsapp.loader;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.data.ArticleBodyStore;
+
+/**
+ * Reads the body of an article from the {@link ArticleBodyStore} in the background.
+ * No network request is performed: a body that has not been prefetched is loaded as null.
+ */
+public class ArticleBodyLoader extends ExecutorLoader<String> {
+
+    private final String mUrl;
+
+    private final ArticleBodyStore mStore;
+
+    private String mBody;
+
+    private boolean mLoaded;
+
+    public ArticleBodyLoader(Context context, String url) {
+        super(context);
+        this.mUrl = url;
+        this.mStore = ArticleBodyStore.getInstance(context);
+    }
+
+    @Override
+    protected void onStartLoading() {
+        super.onStartLoading();
+
+        if (mLoaded) {
+            deliverResult(mBody);
+        } else {
+            // Required to trigger loadInBackground()
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected String loadInBackground(Priority priority, CancellationSignal signal) {
+        // Don't read the store if the url is null.
+        if (mUrl == null) {
+            return null;
+        }
+
+        return mStore.get(mUrl);
+    }
+
+    @Override
+    public void deliverResult(String body) {
+        if (isReset()) {
+            return;
+        }
+
+        // A missing body is a result as well, it is not read again
+        mBody = body;
+        mLoaded = true;
+
+        if (isStarted()) {
+            super.deliverResult(body);
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        mBody = null;
+        mLoaded = false;
+    }
+
+}
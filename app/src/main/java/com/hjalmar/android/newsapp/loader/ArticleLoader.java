@@ -1,42 +1,223 @@
 package com.hjalmar.android.newsapp.loader;
 
-import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.os.CancellationSignal;
 
-import com.hjalmar.android.newsapp.model.Article;
-import com.hjalmar.android.newsapp.util.QueryUtils;
-
-import java.util.List;
+import com.hjalmar.android.newsapp.concurrent.AppExecutors;
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.concurrent.PriorityExecutor;
+import com.hjalmar.android.newsapp.data.ArticleCache;
+import com.hjalmar.android.newsapp.data.ArticleRepository;
+import com.hjalmar.android.newsapp.data.ArticleRepository.CachePolicy;
+import com.hjalmar.android.newsapp.data.ArticleRepository.Page;
+import com.hjalmar.android.newsapp.model.ArticleFeed;
+import com.hjalmar.android.newsapp.util.ArticleQuery;
 
 /**
- * Loads a list of articles by using an AsyncTask to perform the
- * network request to the given URL.
+ * Loads a paginated list of articles by performing the network requests
+ * of the given {@link ArticleQuery} through the {@link ArticleRepository}.
+ * The first page is served from the {@link ArticleCache} when possible,
+ * and a stale cached result is then refreshed from the network in the background,
+ * with a lower priority than the pages requested by the user.
+ * Further pages are loaded on demand through {@link #loadNextPage()} and
+ * {@link #loadPreviousPage()}, keeping at most {@link #MAX_PAGES} pages in memory.
  */
-public class ArticleLoader extends AsyncTaskLoader<List<Article>> {
+public class ArticleLoader extends ExecutorLoader<ArticleFeed> {
+
+    /**
+     * The maximum number of pages kept in the feed window
+     */
+    private static final int MAX_PAGES = 5;
+
+    private static final int FIRST_PAGE = 1;
+
+    private enum PageRequest {
+        NONE, NEXT, PREVIOUS
+    }
+
+    /**
+     * The query of the feed, whose page size is kept for all its pages once it is first loaded
+     */
+    private volatile ArticleQuery mQuery;
+
+    private final ArticleRepository mRepository;
 
-    private final String mUrl;
+    /**
+     * The last feed delivered, kept to be redelivered without reloading
+     */
+    private volatile ArticleFeed mFeed;
 
-    public ArticleLoader(Context context, String url) {
+    /**
+     * The page to load with the next loadInBackground() call
+     */
+    private volatile PageRequest mPageRequest = PageRequest.NONE;
+
+    /**
+     * True when the result being delivered comes from a stale cache entry
+     * and must be followed by a network load
+     */
+    private volatile boolean mRevalidate;
+
+    public ArticleLoader(Context context, ArticleQuery query) {
         super(context);
-        this.mUrl = url;
+        this.mQuery = query;
+        this.mRepository = ArticleRepository.getInstance(context);
+    }
+
+    public ArticleQuery getQuery() {
+        return mQuery;
+    }
+
+    /**
+     * Request the page following the feed window to be loaded in the background.
+     * Does nothing if a page is already being loaded or the last page has been reached.
+     */
+    public void loadNextPage() {
+        ArticleFeed feed = mFeed;
+        if (feed != null && !feed.isLastPageReached() && mPageRequest == PageRequest.NONE) {
+            mPageRequest = PageRequest.NEXT;
+            onContentChanged();
+        }
+    }
+
+    /**
+     * Request the page preceding the feed window to be loaded in the background,
+     * if it has been dropped from memory.
+     */
+    public void loadPreviousPage() {
+        ArticleFeed feed = mFeed;
+        if (feed != null && feed.hasPreviousPages() && mPageRequest == PageRequest.NONE) {
+            mPageRequest = PageRequest.PREVIOUS;
+            onContentChanged();
+        }
+    }
+
+    /**
+     * Load the feed again, e.g. once the connection returns: the first load if it failed,
+     * or the revalidation of the first page.
+     */
+    public void refresh() {
+        onContentChanged();
     }
 
     @Override
     protected void onStartLoading() {
         super.onStartLoading();
 
+        // A page request may have been cancelled while the loader was stopped
+        final PageRequest pageRequest = mPageRequest;
+
+        // Redeliver the data we already have, e.g. after a configuration change
+        if (mFeed != null) {
+            deliverResult(mFeed);
+            mPageRequest = pageRequest;
+        }
+
         // Required to trigger loadInBackground()
-        forceLoad();
+        if (takeContentChanged() || mFeed == null || mPageRequest != PageRequest.NONE) {
+            forceLoad();
+        }
+    }
+
+    /**
+     * The loads wait for the requests of the topics, which can take several timeouts.
+     */
+    @Override
+    protected PriorityExecutor getExecutor() {
+        return AppExecutors.loads();
+    }
+
+    /**
+     * The revalidation of the feed can wait for the pages the user asked for.
+     */
+    @Override
+    protected Priority getLoadPriority() {
+        return mFeed != null && mPageRequest == PageRequest.NONE ? Priority.PREFETCH : Priority.VISIBLE;
     }
 
+    /**
+     * Load the feed. When the load is cancelled its requests are left, and they are aborted
+     * unless another load, e.g. the background sync, is waiting for them too.
+     */
     @Override
-    public List<Article> loadInBackground() {
-        // Don't perform the request if the url is null.
-        if (mUrl == null) {
+    protected ArticleFeed loadInBackground(Priority priority, CancellationSignal signal) {
+        // Don't perform the request if the query is null.
+        if (mQuery == null) {
             return null;
         }
 
-        return QueryUtils.fetchArticleData(mUrl);
+        return loadFeed(priority, signal);
+    }
+
+    private ArticleFeed loadFeed(Priority priority, CancellationSignal signal) {
+        ArticleFeed feed = mFeed;
+        if (feed == null) {
+            // A feed started on a slow link uses the full pages stored by the sync, when they are stored
+            if (!mQuery.hasFullPageSize() && mRepository.isStored(mQuery.withFullPageSize(), FIRST_PAGE)) {
+                mQuery = mQuery.withFullPageSize();
+            }
+
+            // On the first load serve the cached articles straight away, if any
+            Page page = mRepository.loadPage(mQuery, FIRST_PAGE, CachePolicy.CACHE_FIRST, null, priority, signal);
+            if (page == null) {
+                return null;
+            }
+            mRevalidate = page.isStale();
+            return ArticleFeed.fromFirstPage(page.getArticles(), page.isLastPage());
+        }
+
+        switch (mPageRequest) {
+            case NEXT: {
+                Page page = mRepository.loadPage(mQuery, feed.getLastPage() + 1, CachePolicy.FRESH_CACHE, feed.getUrls(), priority, signal);
+                return page != null ? feed.withNextPage(page.getArticles(), page.isLastPage(), MAX_PAGES) : feed;
+            }
+            case PREVIOUS: {
+                Page page = mRepository.loadPage(mQuery, feed.getFirstPage() - 1, CachePolicy.FRESH_CACHE, feed.getUrls(), priority, signal);
+                return page != null ? feed.withPreviousPage(page.getArticles(), MAX_PAGES) : feed;
+            }
+            default: {
+                // Refresh the first page, the only one revalidated in the background
+                if (feed.getPage(FIRST_PAGE) == null) {
+                    return feed;
+                }
+                Page page = mRepository.loadPage(mQuery, FIRST_PAGE, CachePolicy.NETWORK, null, priority, signal);
+                // When the refresh fails keep showing what we have
+                return page != null ? feed.withPage(FIRST_PAGE, page.getArticles(), page.isLastPage()) : feed;
+            }
+        }
+    }
+
+    @Override
+    public void deliverResult(ArticleFeed feed) {
+        if (isReset()) {
+            return;
+        }
+
+        mFeed = feed;
+        mPageRequest = PageRequest.NONE;
+
+        if (isStarted()) {
+            super.deliverResult(feed);
+        }
+
+        // Stale while revalidate: the cached result is shown, now refresh it
+        if (mRevalidate) {
+            mRevalidate = false;
+            onContentChanged();
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        mFeed = null;
+        mPageRequest = PageRequest.NONE;
     }
 
 }
@@ -0,0 +1,82 @@
+package com.hjalmar.android.newsapp.loader;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.data.ArticleCache;
+import com.hjalmar.android.newsapp.model.Article;
+
+import java.util.List;
+
+/**
+ * Searches the articles stored in the {@link ArticleCache} by querying
+ * the full-text index in the background. No network request is performed.
+ */
+public class ArticleSearchLoader extends ExecutorLoader<List<Article>> {
+
+    /**
+     * The maximum number of articles returned by a search
+     */
+    private static final int MAX_RESULTS = 100;
+
+    private final String mQuery;
+
+    private final ArticleCache mCache;
+
+    private List<Article> mResults;
+
+    public ArticleSearchLoader(Context context, String query) {
+        super(context);
+        this.mQuery = query;
+        this.mCache = ArticleCache.getInstance(context);
+    }
+
+    @Override
+    protected void onStartLoading() {
+        super.onStartLoading();
+
+        if (mResults != null) {
+            deliverResult(mResults);
+        } else {
+            // Required to trigger loadInBackground()
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected List<Article> loadInBackground(Priority priority, CancellationSignal signal) {
+        // Don't perform the search if the query is null.
+        if (mQuery == null) {
+            return null;
+        }
+
+        return mCache.search(mQuery, MAX_RESULTS, signal);
+    }
+
+    @Override
+    public void deliverResult(List<Article> results) {
+        if (isReset()) {
+            return;
+        }
+
+        mResults = results;
+
+        if (isStarted()) {
+            super.deliverResult(results);
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        mResults = null;
+    }
+
+}
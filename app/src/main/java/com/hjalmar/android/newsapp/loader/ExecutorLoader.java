@@ -0,0 +1,178 @@
+package com.hjalmar.android.newsapp.loader;
+
+import android.content.Context;
+import android.content.Loader;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+
+import com.hjalmar.android.newsapp.concurrent.AppExecutors;
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.concurrent.PriorityExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link Loader} running its loads on one of the {@link AppExecutors} pools with a
+ * {@link Priority}, in place of the shared executor of an AsyncTask.
+ * Cancelling a load cancels its {@link CancellationSignal}, which aborts the requests it is
+ * waiting for, and interrupts it. A new load can start right away, the cancelled one
+ * finishes on its own and its result is dropped.
+ */
+public abstract class ExecutorLoader<D> extends Loader<D> {
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The running load, whose result is delivered. Only accessed on the main thread.
+     */
+    private LoadTask mTask;
+
+    /**
+     * The load being cancelled, whose cancellation is delivered. Only accessed on the main thread.
+     */
+    private LoadTask mCancellingTask;
+
+    public ExecutorLoader(Context context) {
+        super(context);
+    }
+
+    /**
+     * Perform the load on a background thread. It should stop as soon as the signal is cancelled,
+     * returning or throwing an {@link OperationCanceledException}.
+     *
+     * @param priority the priority the load has been submitted with, to be given to the work it starts
+     */
+    protected abstract D loadInBackground(Priority priority, CancellationSignal signal);
+
+    /**
+     * Return the priority of the load about to be started. Loads are {@link Priority#VISIBLE} by default.
+     */
+    protected Priority getLoadPriority() {
+        return Priority.VISIBLE;
+    }
+
+    /**
+     * Return the pool the loads run on, {@link AppExecutors#compute()} by default.
+     * Loads that wait for the network must run on {@link AppExecutors#loads()} instead,
+     * so that they don't hold the threads of the loads answered from the device.
+     */
+    protected PriorityExecutor getExecutor() {
+        return AppExecutors.compute();
+    }
+
+    /**
+     * Called on the main thread with the result of a cancelled load, which may be null.
+     */
+    protected void onCanceled(D data) {
+    }
+
+    @Override
+    protected void onForceLoad() {
+        super.onForceLoad();
+        cancelLoad();
+
+        final LoadTask task = new LoadTask(getLoadPriority());
+        mTask = task;
+        getExecutor().execute(task);
+    }
+
+    @Override
+    protected boolean onCancelLoad() {
+        if (mTask == null) {
+            return false;
+        }
+
+        final LoadTask task = mTask;
+        mTask = null;
+        if (mCancellingTask != null) {
+            // The loader manager is already waiting for a cancellation, don't deliver another one
+            task.cancel();
+            return false;
+        }
+        mCancellingTask = task;
+        task.cancel();
+        return true;
+    }
+
+    /**
+     * Deliver the result of the given load on the main thread, or its cancellation.
+     */
+    private void dispatch(LoadTask task, D data) {
+        if (task == mCancellingTask) {
+            mCancellingTask = null;
+            onCanceled(data);
+            deliverCancellation();
+        } else if (task != mTask) {
+            // Replaced by a newer load
+            onCanceled(data);
+        } else {
+            mTask = null;
+            if (isAbandoned()) {
+                onCanceled(data);
+            } else {
+                deliverResult(data);
+            }
+        }
+    }
+
+    private class LoadTask extends PriorityExecutor.Task<D> {
+
+        private final CancellationSignal mSignal;
+
+        LoadTask(final Priority priority) {
+            this(priority, new CancellationSignal());
+        }
+
+        private LoadTask(final Priority priority, final CancellationSignal signal) {
+            super(new Callable<D>() {
+                @Override
+                public D call() {
+                    if (signal.isCanceled()) {
+                        throw new OperationCanceledException();
+                    }
+                    return loadInBackground(priority, signal);
+                }
+            }, priority);
+            this.mSignal = signal;
+        }
+
+        void cancel() {
+            mSignal.cancel();
+            cancel(true);
+        }
+
+        /**
+         * Called once the load has completed or failed, on the thread that ran it,
+         * or as soon as it is cancelled, on the main thread that cancelled it.
+         * Either way the result is dispatched on the main thread.
+         */
+        @Override
+        protected void done() {
+            D data = null;
+            try {
+                data = get();
+            } catch (CancellationException e) {
+                // Delivered as a cancellation
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof OperationCanceledException)) {
+                    throw new RuntimeException("An error occurred while loading", e.getCause());
+                }
+            }
+
+            final D result = data;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    dispatch(LoadTask.this, result);
+                }
+            });
+        }
+    }
+
+}
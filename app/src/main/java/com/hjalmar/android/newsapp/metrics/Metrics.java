@@ -0,0 +1,168 @@
+package com.hjalmar.android.newsapp.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and counters of the stages between the request of the articles and their display.
+ * Each stage has a {@link Histogram} of its durations, which can be exported as a JSON snapshot
+ * to tell which stage a slow launch spent its time in.
+ * Recording is disabled by default and costs a single branch then, the app enables it in debug builds.
+ *
+ * Usage: {@code long start = Metrics.start(); ...; Metrics.record(Stage.PARSE, start);}
+ */
+public final class Metrics {
+
+    /**
+     * The timed stages, in the order they happen
+     */
+    public enum Stage {
+        /**
+         * From the creation of the loader to the first delivery of its result
+         */
+        LOAD,
+        /**
+         * Name resolution and connection, including the TLS handshake; zero when a connection is reused
+         */
+        CONNECT,
+        /**
+         * From the request being sent to the response headers being received
+         */
+        TTFB,
+        /**
+         * Time spent waiting for the bytes of the body, which are parsed as they arrive
+         */
+        DOWNLOAD,
+        /**
+         * Time spent parsing the body, excluding the download
+         */
+        PARSE,
+        /**
+         * Construction of a single {@link com.hjalmar.android.newsapp.model.Article}
+         */
+        ARTICLE,
+        /**
+         * Binding of a single article row
+         */
+        BIND
+    }
+
+    public enum Counter {
+        REQUEST, RETRY, NOT_MODIFIED, DELTA, CACHE_HIT, COALESCED, CIRCUIT_OPEN, WIRE_BYTES, BODY_BYTES
+    }
+
+    private static volatile boolean sEnabled;
+
+    private static final Map<Stage, Histogram> sHistograms = new EnumMap<>(Stage.class);
+    private static final Map<Counter, AtomicLong> sCounters = new EnumMap<>(Counter.class);
+
+    static {
+        for (Stage stage : Stage.values()) {
+            sHistograms.put(stage, new Histogram());
+        }
+        for (Counter counter : Counter.values()) {
+            sCounters.put(counter, new AtomicLong());
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Return the start time to pass to {@link #record(Stage, long)}, or 0 if recording is disabled.
+     */
+    public static long start() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the time elapsed since the given start time in the histogram of the stage.
+     */
+    public static void record(Stage stage, long startNanos) {
+        if (sEnabled && startNanos != 0) {
+            sHistograms.get(stage).record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Record the given duration in the histogram of the stage.
+     */
+    public static void recordDuration(Stage stage, long nanos) {
+        if (sEnabled) {
+            sHistograms.get(stage).record(nanos);
+        }
+    }
+
+    public static void increment(Counter counter) {
+        add(counter, 1);
+    }
+
+    public static void add(Counter counter, long value) {
+        if (sEnabled) {
+            sCounters.get(counter).addAndGet(value);
+        }
+    }
+
+    public static Histogram getHistogram(Stage stage) {
+        return sHistograms.get(stage);
+    }
+
+    public static long getCount(Counter counter) {
+        return sCounters.get(counter).get();
+    }
+
+    public static void reset() {
+        for (Histogram histogram : sHistograms.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong value : sCounters.values()) {
+            value.set(0);
+        }
+    }
+
+    /**
+     * Return the current state of the histograms and counters as a JSON object.
+     * Durations are in microseconds, percentiles are the upper bounds of their buckets.
+     */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"stages\":{");
+        boolean first = true;
+        for (Map.Entry<Stage, Histogram> entry : sHistograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            final long count = histogram.getCount();
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append(String.format(Locale.ROOT,
+                    "\"%s\":{\"count\":%d,\"mean_us\":%d,\"p50_us\":%d,\"p90_us\":%d,\"p99_us\":%d,\"max_us\":%d}",
+                    entry.getKey().name().toLowerCase(Locale.ROOT), count,
+                    count > 0 ? histogram.getTotalNanos() / count / 1000 : 0,
+                    histogram.percentileMicros(50), histogram.percentileMicros(90),
+                    histogram.percentileMicros(99), histogram.getMaxNanos() / 1000));
+        }
+        sb.append("},\"counters\":{");
+        first = true;
+        for (Map.Entry<Counter, AtomicLong> entry : sCounters.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append('"').append(entry.getKey().name().toLowerCase(Locale.ROOT)).append("\":").append(entry.getValue().get());
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+}
@@ -1,11 +1,19 @@
 package com.hjalmar.android.newsapp.model;
 
+import com.hjalmar.android.newsapp.util.DateUtils;
+import com.hjalmar.android.newsapp.util.StringPool;
+
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Created by hjalmar
  * On 24/06/2018.
+ * <p>
+ * Besides the raw data, an article holds the values displayed in the list,
+ * computed once when it is created so that binding a row does no string work.
+ * The code building lists of articles shares their sections, authors and authors lines
+ * through a {@link StringPool}.
  */
 public class Article {
 
@@ -14,13 +22,48 @@ public class Article {
     private final String mSectionName;
     private final String mPublicationDate;
     private final String mUrl;
+    private final String mThumbnailUrl;
+
+    private final String mAuthorsLine;
+    private final long mPublicationTime;
+    private final String mPublicationDateLabel;
 
     public Article(String articleTitle, List<String> authors, String sectionName, String publicationDate, String url) {
+        this(articleTitle, authors, sectionName, publicationDate, url, null);
+    }
+
+    public Article(String articleTitle, List<String> authors, String sectionName, String publicationDate, String url,
+                   String thumbnailUrl) {
+        this.mArticleTitle = articleTitle;
+        this.mAuthors = authors != null ? Collections.unmodifiableList(authors) : Collections.<String>emptyList();
+        this.mSectionName = sectionName;
+        this.mPublicationDate = publicationDate;
+        this.mUrl = url;
+        this.mThumbnailUrl = thumbnailUrl;
+
+        this.mAuthorsLine = buildAuthorsString(this.mAuthors);
+        this.mPublicationTime = DateUtils.parseIsoInstant(publicationDate);
+        this.mPublicationDateLabel = DateUtils.formatDateLabel(publicationDate);
+    }
+
+    /**
+     * Create an article of a list built with the given pool, sharing the authors list
+     * and the authors line with the other articles of the same authors.
+     *
+     * @param authors a list returned by {@link StringPool#intern(List)}, already unmodifiable
+     */
+    public Article(String articleTitle, List<String> authors, String sectionName, String publicationDate, String url,
+                   String thumbnailUrl, StringPool pool) {
         this.mArticleTitle = articleTitle;
         this.mAuthors = authors != null ? authors : Collections.<String>emptyList();
         this.mSectionName = sectionName;
         this.mPublicationDate = publicationDate;
         this.mUrl = url;
+        this.mThumbnailUrl = thumbnailUrl;
+
+        this.mAuthorsLine = pool.authorsLine(this.mAuthors);
+        this.mPublicationTime = DateUtils.parseIsoInstant(publicationDate);
+        this.mPublicationDateLabel = DateUtils.formatDateLabel(publicationDate);
     }
 
     public String getArticleTitle() {
@@ -43,6 +86,54 @@ public class Article {
         return mUrl;
     }
 
+    /**
+     * Return the URL of the thumbnail of the article, or null if it has none.
+     */
+    public String getThumbnailUrl() {
+        return mThumbnailUrl;
+    }
+
+    /**
+     * Return the authors joined in a single comma separated line.
+     */
+    public String getAuthorsLine() {
+        return mAuthorsLine;
+    }
+
+    /**
+     * Return the publication date in epoch milliseconds,
+     * or {@link DateUtils#INVALID_TIME} if it could not be parsed.
+     */
+    public long getPublicationTime() {
+        return mPublicationTime;
+    }
+
+    /**
+     * Return the publication date formatted to be displayed.
+     */
+    public String getPublicationDateLabel() {
+        return mPublicationDateLabel;
+    }
+
+    /**
+     * Return the given authors joined in a single comma separated line.
+     */
+    public static String buildAuthorsString(List<String> authors) {
+        if (authors == null || authors.size() == 0) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int lastIndex = authors.size() - 1;
+        for (int i = 0; i < lastIndex; i++) {
+            sb.append(authors.get(i));
+            sb.append(", ");
+        }
+        sb.append(authors.get(lastIndex));
+
+        return sb.toString();
+    }
+
     @Override
     public String toString() {
         return "Article{" +
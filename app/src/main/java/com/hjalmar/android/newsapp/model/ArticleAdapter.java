@@ -2,81 +2,177 @@ package com.hjalmar.android.newsapp.model;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
+import android.support.v7.recyclerview.extensions.ListAdapter;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.hjalmar.android.newsapp.R;
-
-import java.util.List;
+import com.hjalmar.android.newsapp.image.ImageLoader;
+import com.hjalmar.android.newsapp.metrics.Metrics;
+import com.hjalmar.android.newsapp.network.ConnectivityMonitor;
 
 /**
  * Created by hjalmar
  * On 24/06/2018.
  */
-public class ArticleAdapter extends ArrayAdapter<Article> {
+public class ArticleAdapter extends ListAdapter<Article, ArticleAdapter.ViewHolder> {
+
+    /**
+     * The Guardian serves each crop of an image in several widths, named after them:
+     * the thumbnail field is the 500 pixels one, the 140 pixels one is enough on a slow link
+     */
+    private static final String THUMBNAIL_SUFFIX = "/500.jpg";
+    private static final String SMALL_THUMBNAIL_SUFFIX = "/140.jpg";
+
+    /**
+     * Articles are identified by their url: a new list is diffed against the current one
+     * on a background thread, and only the rows whose article changed are rebound.
+     */
+    private static final DiffUtil.ItemCallback<Article> DIFF_CALLBACK = new DiffUtil.ItemCallback<Article>() {
+        @Override
+        public boolean areItemsTheSame(Article oldArticle, Article newArticle) {
+            return oldArticle.getUrl().equals(newArticle.getUrl());
+        }
+
+        @Override
+        public boolean areContentsTheSame(Article oldArticle, Article newArticle) {
+            return oldArticle.getArticleTitle().equals(newArticle.getArticleTitle())
+                    && oldArticle.getSectionName().equals(newArticle.getSectionName())
+                    && oldArticle.getPublicationDate().equals(newArticle.getPublicationDate())
+                    && oldArticle.getAuthors().equals(newArticle.getAuthors())
+                    // The thumbnail is optional, and may be added or replaced when the article is updated
+                    && TextUtils.equals(oldArticle.getThumbnailUrl(), newArticle.getThumbnailUrl());
+        }
+    };
 
-    private static final int DATE_STRING_LENGTH = 10;
+    /**
+     * Interface definition for a callback to be invoked when an article row is clicked.
+     */
+    public interface OnArticleClickListener {
+        void onArticleClick(Article article);
+    }
 
-    private final LayoutInflater mInflater = LayoutInflater.from(getContext());
+    private final LayoutInflater mInflater;
+
+    private final OnArticleClickListener mOnArticleClickListener;
+
+    private final ImageLoader mImageLoader;
+
+    private final ConnectivityMonitor mConnectivityMonitor;
+
+    /**
+     * Size of the thumbnail views, which the thumbnails are decoded to
+     */
+    private final int mThumbnailWidth;
+    private final int mThumbnailHeight;
+
+    /**
+     * The optional parts of the rows, which are only requested when they are shown
+     */
+    private final boolean mShowAuthors;
+    private final boolean mShowThumbnail;
+
+    class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        final ImageView articleThumbnailView;
+        final TextView articleTitleView;
+        final TextView articleAuthorsView;
+        final TextView articleSectionView;
+        final TextView articleDateView;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            articleThumbnailView = itemView.findViewById(R.id.article_thumbnail);
+            articleTitleView = itemView.findViewById(R.id.article_title);
+            articleAuthorsView = itemView.findViewById(R.id.article_authors);
+            articleSectionView = itemView.findViewById(R.id.article_section);
+            articleDateView = itemView.findViewById(R.id.article_date);
+            itemView.setOnClickListener(this);
+        }
 
-    private static class ViewHolder {
-        TextView articleTitleView;
-        TextView articleAuthorsView;
-        TextView articleSectionView;
-        TextView articleDateView;
+        @Override
+        public void onClick(View view) {
+            final int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && mOnArticleClickListener != null) {
+                mOnArticleClickListener.onArticleClick(getItem(position));
+            }
+        }
     }
 
-    public ArticleAdapter(@NonNull Context context, int resource, @NonNull List<Article> objects) {
-        super(context, resource, objects);
+    public ArticleAdapter(@NonNull Context context, OnArticleClickListener onArticleClickListener) {
+        super(DIFF_CALLBACK);
+        this.mInflater = LayoutInflater.from(context);
+        this.mOnArticleClickListener = onArticleClickListener;
+        this.mImageLoader = ImageLoader.getInstance(context);
+        this.mConnectivityMonitor = ConnectivityMonitor.getInstance(context);
+        this.mThumbnailWidth = context.getResources().getDimensionPixelSize(R.dimen.article_thumbnail_width);
+        this.mThumbnailHeight = context.getResources().getDimensionPixelSize(R.dimen.article_thumbnail_height);
+        this.mShowAuthors = context.getResources().getBoolean(R.bool.article_item_show_authors);
+        this.mShowThumbnail = context.getResources().getBoolean(R.bool.article_item_show_thumbnail);
     }
 
     @NonNull
     @Override
-    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
-        ViewHolder holder;
-
-        if (convertView == null) {
-            convertView = mInflater.inflate(R.layout.article_item, parent, false);
-
-            holder = new ViewHolder();
-            holder.articleTitleView = convertView.findViewById(R.id.article_title);
-            holder.articleAuthorsView = convertView.findViewById(R.id.article_authors);
-            holder.articleSectionView = convertView.findViewById(R.id.article_section);
-            holder.articleDateView = convertView.findViewById(R.id.article_date);
-            convertView.setTag(holder);
-        } else {
-            holder = (ViewHolder) convertView.getTag();
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        ViewHolder holder = new ViewHolder(mInflater.inflate(R.layout.article_item, parent, false));
+        if (!mShowAuthors) {
+            holder.articleAuthorsView.setVisibility(View.GONE);
+        }
+        if (!mShowThumbnail) {
+            holder.articleThumbnailView.setVisibility(View.GONE);
         }
+        return holder;
+    }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        final long start = Metrics.start();
         Article article = getItem(position);
-        if (article != null) {
-            holder.articleTitleView.setText(article.getArticleTitle());
-            holder.articleAuthorsView.setText(buildAuthorsString(article.getAuthors()));
-            holder.articleSectionView.setText(article.getSectionName());
-            holder.articleDateView.setText(article.getPublicationDate().substring(0, DATE_STRING_LENGTH));
+        holder.articleTitleView.setText(article.getArticleTitle());
+        holder.articleAuthorsView.setText(article.getAuthorsLine());
+        holder.articleSectionView.setText(article.getSectionName());
+        holder.articleDateView.setText(article.getPublicationDateLabel());
+        if (mShowThumbnail) {
+            mImageLoader.load(holder.articleThumbnailView, getThumbnailUrl(article), mThumbnailWidth, mThumbnailHeight);
         }
+        Metrics.record(Metrics.Stage.BIND, start);
+    }
 
-        return convertView;
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        // The row will show another article, its thumbnail is not needed anymore
+        mImageLoader.cancel(holder.articleThumbnailView);
     }
 
-    private String buildAuthorsString(List<String> authors) {
-        if (authors == null || authors.size() == 0) {
-            return "";
+    /**
+     * Load the thumbnails of the articles in the given range of positions,
+     * so that they are ready when their rows are scrolled into view.
+     * On a slow link only the thumbnails of the rows shown are loaded.
+     */
+    public void prefetchThumbnails(int fromPosition, int toPosition) {
+        if (!mShowThumbnail || mConnectivityMonitor.getQuality().isSlow()) {
+            return;
         }
-
-        StringBuilder sb = new StringBuilder();
-        int lastIndex = authors.size() - 1;
-        for (int i = 0; i < lastIndex; i++) {
-            sb.append(authors.get(i));
-            sb.append(", ");
+        final int end = Math.min(toPosition, getItemCount() - 1);
+        for (int position = Math.max(0, fromPosition); position <= end; position++) {
+            mImageLoader.prefetch(getThumbnailUrl(getItem(position)), mThumbnailWidth, mThumbnailHeight);
         }
-        sb.append(authors.get(lastIndex));
+    }
 
-        return sb.toString();
+    /**
+     * Return the URL of the thumbnail of the article in the size suited to the current connection.
+     */
+    private String getThumbnailUrl(Article article) {
+        final String thumbnailUrl = article.getThumbnailUrl();
+        if (thumbnailUrl != null && mConnectivityMonitor.getQuality().isSlow() && thumbnailUrl.endsWith(THUMBNAIL_SUFFIX)) {
+            return thumbnailUrl.substring(0, thumbnailUrl.length() - THUMBNAIL_SUFFIX.length()) + SMALL_THUMBNAIL_SUFFIX;
+        }
+        return thumbnailUrl;
     }
 
 }
@@ -0,0 +1,244 @@
+package com.hjalmar.android.newsapp.model;
+
+import com.hjalmar.android.newsapp.util.DateUtils;
+import com.hjalmar.android.newsapp.util.StringPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format of a list of articles, several times smaller and faster to read than
+ * the JSON of the Guardian API.
+ * <p>
+ * Every string is written once in a table at the start, and the articles refer to it by index,
+ * so the sections and the recurring authors of a feed cost a byte or two per article.
+ * The numbers are varints, and the publication dates are stored as the difference in seconds
+ * from the date of the previous article. Lists are read straight from a {@link ByteBuffer},
+ * e.g. a file mapped in memory, without copying it through streams first.
+ * <pre>
+ * version         byte
+ * string count    varint, then each string as its UTF-8 length (varint) and bytes
+ * article count   varint, then for each article:
+ *   title         string reference
+ *   section       string reference
+ *   date          zigzag varint of the seconds from the previous date, shifted left by one,
+ *                 or a string reference shifted left by one with the lowest bit set
+ *                 when the date is not a plain ISO 8601 instant
+ *   url           string reference
+ *   thumbnail     string reference
+ *   authors       varint count, then a string reference for each author
+ * </pre>
+ * A string reference is the index in the table plus one, or 0 for null.
+ */
+public final class ArticleCodec {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int NULL_REFERENCE = 0;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private ArticleCodec() {
+    }
+
+    /**
+     * Return the binary form of the given articles.
+     */
+    public static byte[] encode(List<Article> articles) {
+        StringTable table = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(articles.size() * 16);
+
+        writeVarint(body, articles.size());
+        long previousSeconds = 0;
+        for (Article article : articles) {
+            writeVarint(body, table.reference(article.getArticleTitle()));
+            writeVarint(body, table.reference(article.getSectionName()));
+
+            final String publicationDate = article.getPublicationDate();
+            final long time = article.getPublicationTime();
+            if (time != DateUtils.INVALID_TIME && time % MILLIS_PER_SECOND == 0
+                    && DateUtils.formatIsoInstant(time).equals(publicationDate)) {
+                final long seconds = time / MILLIS_PER_SECOND;
+                writeVarint(body, zigzag(seconds - previousSeconds) << 1);
+                previousSeconds = seconds;
+            } else {
+                // Keep the original string, so that it is restored as it was
+                writeVarint(body, ((long) table.reference(publicationDate) << 1) | 1);
+            }
+
+            writeVarint(body, table.reference(article.getUrl()));
+            writeVarint(body, table.reference(article.getThumbnailUrl()));
+            List<String> authors = article.getAuthors();
+            writeVarint(body, authors.size());
+            for (String author : authors) {
+                writeVarint(body, table.reference(author));
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(table.mByteCount + body.size() + 8);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, table.mStrings.size());
+        for (byte[] bytes : table.mStrings) {
+            writeVarint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.write(body.toByteArray(), 0, body.size());
+        return out.toByteArray();
+    }
+
+    /**
+     * Return the articles read from the remaining bytes of the buffer, which is left after them.
+     * Articles sharing a section, an author or a list of authors share the same instance.
+     *
+     * @throws IOException if the bytes are not a list of articles of this format
+     */
+    public static List<Article> decode(ByteBuffer buffer) throws IOException {
+        try {
+            final int version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unknown article list version " + version);
+            }
+
+            final String[] strings = new String[readCount(buffer)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer, readCount(buffer));
+            }
+
+            final int count = readCount(buffer);
+            List<Article> articles = new ArrayList<>(count);
+            StringPool pool = new StringPool();
+            long previousSeconds = 0;
+            for (int i = 0; i < count; i++) {
+                final String title = resolve(strings, readVarint(buffer));
+                final String section = resolve(strings, readVarint(buffer));
+
+                final long dateValue = readVarint(buffer);
+                final String publicationDate;
+                if ((dateValue & 1) == 0) {
+                    previousSeconds += unzigzag(dateValue >>> 1);
+                    publicationDate = DateUtils.formatIsoInstant(previousSeconds * MILLIS_PER_SECOND);
+                } else {
+                    publicationDate = resolve(strings, dateValue >>> 1);
+                }
+
+                final String url = resolve(strings, readVarint(buffer));
+                final String thumbnailUrl = resolve(strings, readVarint(buffer));
+                final int authorCount = readCount(buffer);
+                List<String> authors = new ArrayList<>(authorCount);
+                for (int j = 0; j < authorCount; j++) {
+                    authors.add(resolve(strings, readVarint(buffer)));
+                }
+                articles.add(new Article(title, pool.intern(authors), section, publicationDate, url, thumbnailUrl, pool));
+            }
+            return articles;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated article list", e);
+        }
+    }
+
+    /**
+     * @param length a length read by {@link #readCount}, which fits in the buffer
+     */
+    private static String readString(ByteBuffer buffer, int length) {
+        final String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+        } else {
+            // Decode from the mapped bytes in place, without copying them in an array first
+            ByteBuffer slice = buffer.slice();
+            slice.limit(length);
+            string = UTF_8.decode(slice).toString();
+        }
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    private static String resolve(String[] strings, long reference) throws IOException {
+        if (reference == NULL_REFERENCE) {
+            return null;
+        }
+        if (reference < 0 || reference > strings.length) {
+            throw new IOException("Invalid string reference " + reference);
+        }
+        return strings[(int) reference - 1];
+    }
+
+    /**
+     * Read the number of strings, articles, authors or bytes that follow. Each of them takes
+     * at least a byte, so a count larger than the bytes left can only come from a corrupt list,
+     * and is rejected before anything is allocated for it.
+     */
+    private static int readCount(ByteBuffer buffer) throws IOException {
+        final long count = readVarint(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IOException("Invalid count " + count);
+        }
+        return (int) count;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Map signed values to unsigned ones, so that small negative differences stay short.
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * The distinct strings of the articles being encoded, in the order they first appear
+     */
+    private static class StringTable {
+
+        private final Map<String, Integer> mReferences = new HashMap<>();
+        private final List<byte[]> mStrings = new ArrayList<>();
+        private int mByteCount;
+
+        int reference(String string) {
+            if (string == null) {
+                return NULL_REFERENCE;
+            }
+            Integer reference = mReferences.get(string);
+            if (reference == null) {
+                byte[] bytes = string.getBytes(UTF_8);
+                mStrings.add(bytes);
+                mByteCount += bytes.length + 2;
+                reference = mStrings.size();
+                mReferences.put(string, reference);
+            }
+            return reference;
+        }
+    }
+
+}
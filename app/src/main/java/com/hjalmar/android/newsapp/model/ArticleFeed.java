@@ -0,0 +1,145 @@
+package com.hjalmar.android.newsapp.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable window over the pages of a paginated article query.
+ * Only a bounded number of consecutive pages is kept: when a page is added at one end
+ * and the window is full, the page at the other end is dropped, so memory does not
+ * grow with the distance scrolled.
+ */
+public class ArticleFeed {
+
+    private final List<List<Article>> mPages;
+    private final int mFirstPage;
+    private final boolean mLastPageReached;
+    private final List<Article> mArticles;
+
+    private ArticleFeed(List<List<Article>> pages, int firstPage, boolean lastPageReached) {
+        this.mPages = Collections.unmodifiableList(pages);
+        this.mFirstPage = firstPage;
+        this.mLastPageReached = lastPageReached;
+
+        List<Article> articles = new ArrayList<>();
+        for (List<Article> page : pages) {
+            articles.addAll(page);
+        }
+        this.mArticles = Collections.unmodifiableList(articles);
+    }
+
+    /**
+     * Create a feed holding only the first page of the query.
+     */
+    public static ArticleFeed fromFirstPage(List<Article> page, boolean isLastPage) {
+        List<List<Article>> pages = new ArrayList<>();
+        pages.add(page);
+        return new ArticleFeed(pages, 1, isLastPage);
+    }
+
+    /**
+     * Return all the articles of the window, in page order.
+     */
+    public List<Article> getArticles() {
+        return mArticles;
+    }
+
+    /**
+     * Return the pages of the window, in order.
+     */
+    public List<List<Article>> getPages() {
+        return mPages;
+    }
+
+    /**
+     * Return the number, starting from 1, of the first page in the window.
+     */
+    public int getFirstPage() {
+        return mFirstPage;
+    }
+
+    /**
+     * Return the number, starting from 1, of the last page in the window.
+     */
+    public int getLastPage() {
+        return mFirstPage + mPages.size() - 1;
+    }
+
+    /**
+     * Return the urls of all the articles of the window.
+     */
+    public Set<String> getUrls() {
+        Set<String> urls = new HashSet<>();
+        for (Article article : mArticles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * Return the page with the given number, or null if it is not in the window.
+     */
+    public List<Article> getPage(int pageNumber) {
+        final int index = pageNumber - mFirstPage;
+        return index >= 0 && index < mPages.size() ? mPages.get(index) : null;
+    }
+
+    public boolean isLastPageReached() {
+        return mLastPageReached;
+    }
+
+    public boolean hasPreviousPages() {
+        return mFirstPage > 1;
+    }
+
+    public boolean isEmpty() {
+        return mArticles.isEmpty();
+    }
+
+    /**
+     * Return a new feed with the given page appended, dropping the first page if the window is full.
+     */
+    public ArticleFeed withNextPage(List<Article> page, boolean isLastPage, int maxPages) {
+        List<List<Article>> pages = new ArrayList<>(mPages);
+        pages.add(page);
+        int firstPage = mFirstPage;
+        if (pages.size() > maxPages) {
+            pages.remove(0);
+            firstPage++;
+        }
+        return new ArticleFeed(pages, firstPage, isLastPage);
+    }
+
+    /**
+     * Return a new feed with the given page prepended, dropping the last page if the window is full.
+     */
+    public ArticleFeed withPreviousPage(List<Article> page, int maxPages) {
+        List<List<Article>> pages = new ArrayList<>(mPages);
+        pages.add(0, page);
+        boolean lastPageReached = mLastPageReached;
+        if (pages.size() > maxPages) {
+            pages.remove(pages.size() - 1);
+            lastPageReached = false;
+        }
+        return new ArticleFeed(pages, mFirstPage - 1, lastPageReached);
+    }
+
+    /**
+     * Return a new feed where the page with the given number is replaced,
+     * or this same feed if that page is not in the window.
+     */
+    public ArticleFeed withPage(int pageNumber, List<Article> page, boolean isLastPage) {
+        final int index = pageNumber - mFirstPage;
+        if (index < 0 || index >= mPages.size()) {
+            return this;
+        }
+        List<List<Article>> pages = new ArrayList<>(mPages);
+        pages.set(index, page);
+        final boolean isLastInWindow = index == pages.size() - 1;
+        return new ArticleFeed(pages, mFirstPage, isLastInWindow ? isLastPage : mLastPageReached);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.hjalmar.android.newsapp.network;
+
+/**
+ * Stops the requests to a failing server for a while, so that the stored results
+ * can be shown straight away instead of after a series of timeouts.
+ * After {@link #FAILURE_THRESHOLD} consecutive failures the circuit opens and requests
+ * are refused for {@link #OPEN_DURATION_MILLIS}. A single trial request is then let through:
+ * its success closes the circuit, its failure opens it again. A trial whose outcome is never
+ * reported, e.g. because it has been cancelled, is replaced after the same interval.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The number of consecutive failures that opens the circuit
+     */
+    static final int FAILURE_THRESHOLD = 5;
+
+    /**
+     * How long the circuit stays open before a trial request is allowed
+     */
+    static final long OPEN_DURATION_MILLIS = 30000;
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private State mState = State.CLOSED;
+    private int mFailureCount;
+    private long mOpenedAt;
+    private long mTrialStartedAt;
+
+    /**
+     * Return true if a request can be performed. When the open interval has elapsed
+     * only the first caller is allowed, until the outcome of its request is reported.
+     */
+    public boolean allowRequest() {
+        return allowRequest(System.currentTimeMillis());
+    }
+
+    synchronized boolean allowRequest(long now) {
+        switch (mState) {
+            case OPEN:
+                if (now - mOpenedAt < OPEN_DURATION_MILLIS) {
+                    return false;
+                }
+                mState = State.HALF_OPEN;
+                mTrialStartedAt = now;
+                return true;
+            case HALF_OPEN:
+                // Wait for the trial request, unless it has been abandoned
+                if (now - mTrialStartedAt < OPEN_DURATION_MILLIS) {
+                    return false;
+                }
+                mTrialStartedAt = now;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        mState = State.CLOSED;
+        mFailureCount = 0;
+    }
+
+    public void onFailure() {
+        onFailure(System.currentTimeMillis());
+    }
+
+    synchronized void onFailure(long now) {
+        mFailureCount++;
+        if (mState == State.HALF_OPEN || mFailureCount >= FAILURE_THRESHOLD) {
+            mState = State.OPEN;
+            mOpenedAt = now;
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return mState != State.CLOSED;
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.hjalmar.android.newsapp.network;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Follows the network the device is connected to and classifies it as a {@link NetworkQuality},
+ * from whether it is metered and its estimated bandwidth. The class is updated whenever the
+ * connection changes, and on Nougat and above whenever the estimated bandwidth does.
+ * It is read from any thread, the listeners are notified on the main thread.
+ */
+public class ConnectivityMonitor {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ConnectivityMonitor.class.getSimpleName();
+
+    /**
+     * The bandwidth of the 2G mobile networks, before Marshmallow reports an estimate
+     */
+    private static final int MOBILE_2G_BANDWIDTH_KBPS = 100;
+
+    /**
+     * Notified on the main thread when the class of the network changes
+     */
+    public interface Listener {
+        void onNetworkQualityChanged(NetworkQuality quality);
+    }
+
+    private static ConnectivityMonitor sInstance;
+
+    private final ConnectivityManager mConnectivityManager;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Only accessed on the main thread
+     */
+    private final List<Listener> mListeners = new ArrayList<>();
+
+    private volatile NetworkQuality mQuality;
+
+    private final Runnable mUpdate = new Runnable() {
+        @Override
+        public void run() {
+            update();
+        }
+    };
+
+    private ConnectivityMonitor(Context context) {
+        this.mConnectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.mQuality = readQuality();
+
+        // The monitor lives as long as the process, so the receiver is never unregistered
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                update();
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+        if (mConnectivityManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            registerNetworkCallback();
+        }
+    }
+
+    public static synchronized ConnectivityMonitor getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ConnectivityMonitor(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return the class of the network currently connected.
+     */
+    public NetworkQuality getQuality() {
+        return mQuality;
+    }
+
+    /**
+     * Register a listener, to be called on the main thread. Must be called on the main thread.
+     */
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Must be called on the main thread.
+     */
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * The bandwidth estimate changes without a connectivity broadcast
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    private void registerNetworkCallback() {
+        mConnectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities networkCapabilities) {
+                mMainHandler.post(mUpdate);
+            }
+
+            @Override
+            public void onLost(Network network) {
+                mMainHandler.post(mUpdate);
+            }
+        });
+    }
+
+    /**
+     * Classify the network again and notify the listeners if its class changed.
+     */
+    private void update() {
+        final NetworkQuality quality = readQuality();
+        if (quality == mQuality) {
+            return;
+        }
+        Log.d(LOG_TAG, "Network changed from " + mQuality + " to " + quality);
+        mQuality = quality;
+        for (Listener listener : new ArrayList<>(mListeners)) {
+            listener.onNetworkQualityChanged(quality);
+        }
+    }
+
+    private NetworkQuality readQuality() {
+        if (mConnectivityManager == null) {
+            return NetworkQuality.OFFLINE;
+        }
+        NetworkInfo activeNetwork = mConnectivityManager.getActiveNetworkInfo();
+        if (activeNetwork == null || !activeNetwork.isConnected()) {
+            return NetworkQuality.OFFLINE;
+        }
+        return NetworkQuality.classify(mConnectivityManager.isActiveNetworkMetered(), estimateBandwidth(activeNetwork));
+    }
+
+    /**
+     * Return the downstream bandwidth of the active network in kilobits per second,
+     * as estimated by the system, or from the type of the mobile network on older versions.
+     */
+    private int estimateBandwidth(NetworkInfo activeNetwork) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return readBandwidth();
+        }
+        if (activeNetwork.getType() != ConnectivityManager.TYPE_MOBILE) {
+            return NetworkQuality.UNKNOWN_BANDWIDTH;
+        }
+        switch (activeNetwork.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return MOBILE_2G_BANDWIDTH_KBPS;
+            default:
+                return NetworkQuality.UNKNOWN_BANDWIDTH;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private int readBandwidth() {
+        NetworkCapabilities capabilities = mConnectivityManager.getNetworkCapabilities(mConnectivityManager.getActiveNetwork());
+        return capabilities != null ? capabilities.getLinkDownstreamBandwidthKbps() : NetworkQuality.UNKNOWN_BANDWIDTH;
+    }
+
+}
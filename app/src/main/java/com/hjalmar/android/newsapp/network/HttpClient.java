@@ -0,0 +1,44 @@
+package com.hjalmar.android.newsapp.network;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Entry point of the HTTP requests of the app.
+ * Requests go through {@link UrlConnectionTransport} unless another {@link Transport}
+ * has been set, for instance to measure the app against a local stand-in of the Guardian API.
+ */
+public final class HttpClient {
+
+    static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    static final String HEADER_ETAG = "ETag";
+    static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    static final String HEADER_RETRY_AFTER = "Retry-After";
+    static final String ENCODING_GZIP = "gzip";
+
+    private static volatile Transport sTransport = new UrlConnectionTransport();
+
+    private HttpClient() {
+    }
+
+    /**
+     * Replace the transport used by all the following requests.
+     */
+    public static void setTransport(Transport transport) {
+        sTransport = transport;
+    }
+
+    /**
+     * Perform a GET request to the given URL. If an ETag or a Last-Modified date are given
+     * the request is conditional, and {@link HttpResponse#isNotModified()} tells whether
+     * the previously stored result can be reused.
+     * The returned response must always be closed.
+     */
+    public static HttpResponse get(URL url, String eTag, String lastModified) throws IOException {
+        return sTransport.get(url, eTag, lastModified);
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.hjalmar.android.newsapp.network;
+
+import com.hjalmar.android.newsapp.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Response to a request made through a {@link Transport}.
+ * It keeps track of the bytes received on the wire and of the bytes decoded from them,
+ * so the savings given by compression can be measured.
+ */
+public abstract class HttpResponse implements Closeable {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final int DRAIN_BUFFER_SIZE = 4096;
+
+    /**
+     * The most bytes of the body read on close to reuse the connection. Reading the rest of
+     * a large body, e.g. of an abandoned download, would take longer than opening a new one.
+     */
+    static final int MAX_DRAIN_BYTES = 2 * DRAIN_BUFFER_SIZE;
+
+    private final int mCode;
+
+    private CountingInputStream mWireStream;
+    private CountingInputStream mBodyStream;
+
+    protected HttpResponse(int code) {
+        this.mCode = code;
+    }
+
+    public int getCode() {
+        return mCode;
+    }
+
+    /**
+     * Return the message sent by the server along with the response code, if any.
+     */
+    public abstract String getMessage();
+
+    /**
+     * Return the value of the given response header, or null if it is missing.
+     */
+    public abstract String getHeader(String name);
+
+    /**
+     * Return the raw response body as received from the transport, or null if there is none.
+     */
+    protected abstract InputStream openBody() throws IOException;
+
+    /**
+     * Release the underlying connection without letting it be reused.
+     */
+    protected abstract void abort();
+
+    public boolean isSuccessful() {
+        return mCode == HTTP_OK;
+    }
+
+    /**
+     * Return true if the server confirmed that the result of the conditional request is unchanged.
+     */
+    public boolean isNotModified() {
+        return mCode == HTTP_NOT_MODIFIED;
+    }
+
+    public String getETag() {
+        return getHeader(HttpClient.HEADER_ETAG);
+    }
+
+    public String getLastModified() {
+        return getHeader(HttpClient.HEADER_LAST_MODIFIED);
+    }
+
+    public String getRetryAfter() {
+        return getHeader(HttpClient.HEADER_RETRY_AFTER);
+    }
+
+    /**
+     * Return the decoded response body.
+     */
+    public InputStream getBody() throws IOException {
+        if (mBodyStream == null) {
+            InputStream rawStream = openBody();
+            if (rawStream == null) {
+                return null;
+            }
+            mWireStream = new CountingInputStream(rawStream);
+            InputStream decodedStream = HttpClient.ENCODING_GZIP.equalsIgnoreCase(getHeader(HttpClient.HEADER_CONTENT_ENCODING))
+                    ? new GZIPInputStream(mWireStream) : mWireStream;
+            mBodyStream = new CountingInputStream(decodedStream);
+        }
+        return mBodyStream;
+    }
+
+    /**
+     * Return the number of bytes read from the connection so far.
+     */
+    public long getWireBytes() {
+        return mWireStream != null ? mWireStream.getCount() : 0;
+    }
+
+    /**
+     * Return the time spent waiting for the bytes of the body so far, when {@link Metrics} are enabled.
+     */
+    public long getReadNanos() {
+        return mWireStream != null ? mWireStream.getReadNanos() : 0;
+    }
+
+    /**
+     * Return the number of bytes decoded from the response body so far.
+     */
+    public long getDecodedBytes() {
+        return mBodyStream != null ? mBodyStream.getCount() : 0;
+    }
+
+    /**
+     * Abort the request from another thread, making the pending and the following reads fail.
+     */
+    public void cancel() {
+        abort();
+    }
+
+    /**
+     * Consume what is left of the body and release the connection, so that it can be reused.
+     * If this fails, or more than {@link #MAX_DRAIN_BYTES} are left, the connection is disconnected instead.
+     */
+    @Override
+    public void close() {
+        try {
+            if (mBodyStream != null) {
+                byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+                int drained = 0;
+                int read;
+                while ((read = mBodyStream.read(buffer)) != -1) {
+                    // Discard the remaining bytes
+                    drained += read;
+                    if (drained > MAX_DRAIN_BYTES) {
+                        abort();
+                        return;
+                    }
+                }
+                mBodyStream.close();
+            } else if (mCode != HTTP_NOT_MODIFIED) {
+                // The connection can't be reused if the body has not been read
+                abort();
+            }
+        } catch (IOException e) {
+            abort();
+        }
+    }
+
+    /**
+     * An {@link InputStream} that counts the bytes read through it.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long mCount;
+        private long mReadNanos;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return mCount;
+        }
+
+        long getReadNanos() {
+            return mReadNanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final long start = Metrics.start();
+            int b = super.read();
+            if (start != 0) {
+                mReadNanos += System.nanoTime() - start;
+            }
+            if (b != -1) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            final long start = Metrics.start();
+            int read = super.read(buffer, offset, count);
+            if (start != 0) {
+                mReadNanos += System.nanoTime() - start;
+            }
+            if (read > 0) {
+                mCount += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            mCount += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.hjalmar.android.newsapp.network;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the last requests, to derive timeouts from the actual
+ * conditions of the network instead of fixed worst case values.
+ */
+class LatencyTracker {
+
+    private static final int MAX_SAMPLES = 50;
+
+    /**
+     * The number of samples needed before the percentiles are meaningful
+     */
+    static final int MIN_SAMPLES = 5;
+
+    private final long[] mSamples = new long[MAX_SAMPLES];
+    private int mCount;
+    private int mNext;
+
+    synchronized void record(long latencyMillis) {
+        mSamples[mNext] = latencyMillis;
+        mNext = (mNext + 1) % MAX_SAMPLES;
+        mCount = Math.min(mCount + 1, MAX_SAMPLES);
+    }
+
+    /**
+     * Return the given percentile, between 0 and 100, of the recorded latencies,
+     * or the default value if there are too few of them.
+     */
+    synchronized long percentile(int percentile, long defaultValue) {
+        if (mCount < MIN_SAMPLES) {
+            return defaultValue;
+        }
+        long[] sorted = Arrays.copyOf(mSamples, mCount);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100.0 * mCount) - 1;
+        return sorted[Math.max(0, Math.min(mCount - 1, index))];
+    }
+
+}
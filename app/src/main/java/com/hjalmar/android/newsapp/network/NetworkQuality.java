@@ -0,0 +1,104 @@
+package com.hjalmar.android.newsapp.network;
+
+/**
+ * The classes of network link the app adapts its loading to, from the cheapest to use
+ * to the most constrained, each with how much it loads ahead and how often it refreshes.
+ */
+public enum NetworkQuality {
+
+    /**
+     * Unmetered and fast enough, e.g. Wi-Fi: the bodies of the articles are prefetched as well
+     */
+    UNMETERED(2, 10, 5 * 60 * 1000L),
+
+    /**
+     * Metered, e.g. mobile data: the stored pages are refreshed less often
+     */
+    METERED(2, 5, 15 * 60 * 1000L),
+
+    /**
+     * Too slow for more than the rows on screen, e.g. 2G: pages of a single screen,
+     * small thumbnails loaded only once their rows are shown
+     */
+    SLOW(1, 2, 30 * 60 * 1000L),
+
+    /**
+     * No connection: the stored pages are used as they are, requests wait for the connection.
+     * The pages are those of an unmetered network, which the background sync prefetches.
+     */
+    OFFLINE(2, 5, Long.MAX_VALUE);
+
+    /**
+     * The downstream bandwidth below which a link is slow, in kilobits per second
+     */
+    static final int SLOW_BANDWIDTH_KBPS = 1000;
+
+    /**
+     * The bandwidth of a link that can't be estimated
+     */
+    static final int UNKNOWN_BANDWIDTH = 0;
+
+    private final int mScreensPerPage;
+    private final int mPrefetchDistance;
+    private final long mFreshTtl;
+
+    NetworkQuality(int screensPerPage, int prefetchDistance, long freshTtl) {
+        this.mScreensPerPage = screensPerPage;
+        this.mPrefetchDistance = prefetchDistance;
+        this.mFreshTtl = freshTtl;
+    }
+
+    /**
+     * Return the class of a connected link.
+     *
+     * @param downstreamKbps the estimated bandwidth of the link, or {@link #UNKNOWN_BANDWIDTH}
+     */
+    static NetworkQuality classify(boolean isMetered, int downstreamKbps) {
+        if (downstreamKbps != UNKNOWN_BANDWIDTH && downstreamKbps < SLOW_BANDWIDTH_KBPS) {
+            return SLOW;
+        }
+        return isMetered ? METERED : UNMETERED;
+    }
+
+    /**
+     * Return the number of screens of rows requested with each page.
+     */
+    public int getScreensPerPage() {
+        return mScreensPerPage;
+    }
+
+    /**
+     * Return how many rows before either end of the list the adjacent page starts loading,
+     * which is also the number of thumbnails loaded ahead of the scroll.
+     */
+    public int getPrefetchDistance() {
+        return mPrefetchDistance;
+    }
+
+    /**
+     * Return the time in milliseconds a stored page is used before being revalidated.
+     */
+    public long getFreshTtl() {
+        return mFreshTtl;
+    }
+
+    public boolean isConnected() {
+        return this != OFFLINE;
+    }
+
+    /**
+     * Return true if content the user may never open, like the bodies of the articles,
+     * can be downloaded in advance.
+     */
+    public boolean allowsPrefetch() {
+        return this == UNMETERED;
+    }
+
+    /**
+     * Return true if the images must be loaded in their smallest size, and only when shown.
+     */
+    public boolean isSlow() {
+        return this == SLOW;
+    }
+
+}
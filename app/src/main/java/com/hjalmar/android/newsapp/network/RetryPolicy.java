@@ -0,0 +1,126 @@
+package com.hjalmar.android.newsapp.network;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * When and after how long a failed request is retried.
+ * Delays grow exponentially with full jitter, so that clients failing together
+ * don't retry together, unless the server asked for a delay through Retry-After.
+ */
+public final class RetryPolicy {
+
+    /**
+     * Returned when the request should not be retried
+     */
+    public static final long NO_RETRY = -1;
+
+    /**
+     * The maximum number of attempts for a request, the first one included
+     */
+    public static final int MAX_ATTEMPTS = 3;
+
+    private static final long BASE_DELAY_MILLIS = 500;
+
+    private static final long MAX_DELAY_MILLIS = 8000;
+
+    /**
+     * The longest Retry-After worth waiting for, beyond it the stored articles are used instead
+     */
+    private static final long MAX_RETRY_AFTER_MILLIS = 30000;
+
+    private static final String HTTP_DATE_PATTERN = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private static final int HTTP_CLIENT_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int HTTP_BAD_GATEWAY = 502;
+    private static final int HTTP_UNAVAILABLE = 503;
+    private static final int HTTP_GATEWAY_TIMEOUT = 504;
+
+    private static final Random sRandom = new Random();
+
+    private RetryPolicy() {
+    }
+
+    /**
+     * Return true if a response with the given code is a transient failure worth retrying.
+     */
+    public static boolean isRetryable(int code) {
+        switch (code) {
+            case HTTP_CLIENT_TIMEOUT:
+            case HTTP_TOO_MANY_REQUESTS:
+            case HTTP_INTERNAL_ERROR:
+            case HTTP_BAD_GATEWAY:
+            case HTTP_UNAVAILABLE:
+            case HTTP_GATEWAY_TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Return true if a response with the given code tells that the server is in trouble,
+     * rather than that the request itself was wrong.
+     */
+    public static boolean isServerFailure(int code) {
+        return code >= HTTP_INTERNAL_ERROR || code == HTTP_CLIENT_TIMEOUT || code == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Return how long to wait before retrying the given failed attempt, counted from 1,
+     * or {@link #NO_RETRY} if no attempt is left or the server asked to wait too long.
+     *
+     * @param retryAfter the Retry-After header of the failed response, or null
+     */
+    public static long getDelayMillis(int attempt, String retryAfter) {
+        return getDelayMillis(attempt, retryAfter, System.currentTimeMillis());
+    }
+
+    static long getDelayMillis(int attempt, String retryAfter, long now) {
+        if (attempt >= MAX_ATTEMPTS) {
+            return NO_RETRY;
+        }
+
+        final long retryAfterMillis = parseRetryAfter(retryAfter, now);
+        if (retryAfterMillis != NO_RETRY) {
+            return retryAfterMillis <= MAX_RETRY_AFTER_MILLIS ? retryAfterMillis : NO_RETRY;
+        }
+
+        final long ceiling = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << (attempt - 1));
+        synchronized (sRandom) {
+            return (long) (sRandom.nextDouble() * ceiling);
+        }
+    }
+
+    /**
+     * Return the delay in milliseconds given by a Retry-After header, either as seconds
+     * or as an HTTP date, or {@link #NO_RETRY} if it is missing or invalid.
+     */
+    static long parseRetryAfter(String retryAfter, long now) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return NO_RETRY;
+        }
+        final String value = retryAfter.trim();
+
+        try {
+            final long seconds = Long.parseLong(value);
+            return seconds >= 0 ? seconds * 1000 : NO_RETRY;
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, it may be a date
+        }
+
+        SimpleDateFormat httpDateFormat = new SimpleDateFormat(HTTP_DATE_PATTERN, Locale.US);
+        httpDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, httpDateFormat.parse(value).getTime() - now);
+        } catch (ParseException e) {
+            return NO_RETRY;
+        }
+    }
+
+}
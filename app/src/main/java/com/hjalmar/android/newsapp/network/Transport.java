@@ -0,0 +1,18 @@
+package com.hjalmar.android.newsapp.network;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Performs the requests of {@link HttpClient}.
+ * It can be replaced to run the app or its load tests against a stand-in of the Guardian API.
+ */
+public interface Transport {
+
+    /**
+     * Perform a GET request to the given URL, conditional if an ETag or a Last-Modified date are given.
+     * The returned response must always be closed.
+     */
+    HttpResponse get(URL url, String eTag, String lastModified) throws IOException;
+
+}
@@ -0,0 +1,139 @@
+package com.hjalmar.android.newsapp.network;
+
+import com.hjalmar.android.newsapp.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+
+/**
+ * {@link Transport} on top of {@link HttpURLConnection}.
+ * Responses are requested gzip compressed and can be revalidated with the
+ * validators of a previous response. Connections are never explicitly disconnected
+ * on success, so the platform connection pool can reuse them through keep-alive
+ * once the {@link HttpResponse} is closed.
+ * Timeouts are derived from the latencies observed so far, so that a dead connection is
+ * given up quickly on a good network, while a slow network still gets the time it needs.
+ */
+public final class UrlConnectionTransport implements Transport {
+
+    /**
+     * The timeout in milliseconds to estabilish a connection, and the upper bound of the adaptive one
+     */
+    private static final int CONNECT_TIMEOUT = 15000;
+
+    /**
+     * The timeout in milliseconds when reading from the input stream when a connection is estabilished to a resource,
+     * and the upper bound of the adaptive one
+     */
+    private static final int READ_TIMEOUT = 10000;
+
+    private static final int MIN_CONNECT_TIMEOUT = 3000;
+
+    private static final int MIN_READ_TIMEOUT = 2000;
+
+    /**
+     * How many times the 99th percentile of the observed latencies a request is given
+     */
+    private static final int TIMEOUT_FACTOR = 4;
+
+    private final LatencyTracker mLatencyTracker = new LatencyTracker();
+
+    private enum HttpRequestMethod {
+        GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE
+    }
+
+    @Override
+    public HttpResponse get(URL url, String eTag, String lastModified) throws IOException {
+        final long latencyP99 = mLatencyTracker.percentile(99, -1);
+        final int connectTimeout = adaptiveTimeout(latencyP99, MIN_CONNECT_TIMEOUT, CONNECT_TIMEOUT);
+        final int readTimeout = adaptiveTimeout(latencyP99, MIN_READ_TIMEOUT, READ_TIMEOUT);
+
+        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        final long startTime = System.nanoTime();
+        try {
+            urlConnection.setRequestMethod(HttpRequestMethod.GET.toString());
+            urlConnection.setConnectTimeout(connectTimeout);
+            urlConnection.setReadTimeout(readTimeout);
+
+            // Asking for gzip explicitly disables the transparent decompression of the platform,
+            // which lets us count the bytes actually transferred
+            urlConnection.setRequestProperty(HttpClient.HEADER_ACCEPT_ENCODING, HttpClient.ENCODING_GZIP);
+            if (eTag != null) {
+                urlConnection.setRequestProperty(HttpClient.HEADER_IF_NONE_MATCH, eTag);
+            }
+            if (lastModified != null) {
+                urlConnection.setRequestProperty(HttpClient.HEADER_IF_MODIFIED_SINCE, lastModified);
+            }
+
+            final long connectStart = Metrics.start();
+            urlConnection.connect();
+            Metrics.record(Metrics.Stage.CONNECT, connectStart);
+
+            final long responseStart = Metrics.start();
+            final int code = urlConnection.getResponseCode();
+            Metrics.record(Metrics.Stage.TTFB, responseStart);
+            mLatencyTracker.record((System.nanoTime() - startTime) / 1000000);
+            return new UrlConnectionResponse(urlConnection, code);
+        } catch (SocketTimeoutException e) {
+            // Count the timeout as a latency, so that the next attempts are given longer
+            mLatencyTracker.record(Math.max(connectTimeout, readTimeout));
+            urlConnection.disconnect();
+            throw e;
+        } catch (IOException e) {
+            urlConnection.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a timeout proportional to the given latency percentile, within the given bounds,
+     * or the upper bound if no latency has been observed yet.
+     */
+    private static int adaptiveTimeout(long latencyPercentile, int minTimeout, int maxTimeout) {
+        if (latencyPercentile < 0) {
+            return maxTimeout;
+        }
+        return (int) Math.max(minTimeout, Math.min(maxTimeout, latencyPercentile * TIMEOUT_FACTOR));
+    }
+
+    /**
+     * {@link HttpResponse} reading from an {@link HttpURLConnection}.
+     */
+    private static class UrlConnectionResponse extends HttpResponse {
+
+        private final HttpURLConnection mConnection;
+
+        UrlConnectionResponse(HttpURLConnection connection, int code) {
+            super(code);
+            this.mConnection = connection;
+        }
+
+        @Override
+        public String getMessage() {
+            try {
+                return mConnection.getResponseMessage();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return mConnection.getHeaderField(name);
+        }
+
+        @Override
+        protected InputStream openBody() throws IOException {
+            return getCode() < HttpURLConnection.HTTP_BAD_REQUEST ? mConnection.getInputStream() : mConnection.getErrorStream();
+        }
+
+        @Override
+        protected void abort() {
+            mConnection.disconnect();
+        }
+    }
+
+}
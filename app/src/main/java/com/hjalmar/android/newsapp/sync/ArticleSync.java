@@ -0,0 +1,146 @@
+package com.hjalmar.android.newsapp.sync;
+
+import android.annotation.TargetApi;
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hjalmar.android.newsapp.concurrent.Priority;
+import com.hjalmar.android.newsapp.data.ArticleBodyStore;
+import com.hjalmar.android.newsapp.data.ArticleRepository;
+import com.hjalmar.android.newsapp.util.ArticleQuery;
+
+/**
+ * Periodically prefetches the first page of the query described by the settings,
+ * so that the articles are already stored when the app is launched, along with the
+ * bodies of the first articles, to be read offline.
+ * A sync only runs while the device is charging on an unmetered network. All the
+ * requests of a sync are issued together, so the radio is woken up just once.
+ * On Lollipop and above it is scheduled as a job, on older versions with an
+ * inexact alarm, which the system batches with the alarms of other apps.
+ */
+public final class ArticleSync {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleSync.class.getSimpleName();
+
+    private static final int SYNC_JOB_ID = 1;
+
+    /**
+     * The interval in milliseconds between two syncs
+     */
+    private static final long SYNC_INTERVAL = 3 * AlarmManager.INTERVAL_HOUR;
+
+    private static final int FIRST_PAGE = 1;
+
+    private ArticleSync() {
+    }
+
+    /**
+     * Schedule the periodic sync, unless it has already been scheduled.
+     */
+    public static void schedule(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            scheduleJob(context);
+        } else {
+            scheduleAlarm(context);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void scheduleJob(Context context) {
+        JobScheduler jobScheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (jobScheduler == null) {
+            return;
+        }
+
+        for (JobInfo jobInfo : jobScheduler.getAllPendingJobs()) {
+            if (jobInfo.getId() == SYNC_JOB_ID) {
+                return;
+            }
+        }
+
+        JobInfo jobInfo = new JobInfo.Builder(SYNC_JOB_ID, new ComponentName(context, ArticleSyncJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setPeriodic(SYNC_INTERVAL)
+                .setPersisted(true)
+                .build();
+        if (jobScheduler.schedule(jobInfo) != JobScheduler.RESULT_SUCCESS) {
+            Log.e(LOG_TAG, "Unable to schedule the sync job");
+        }
+    }
+
+    private static void scheduleAlarm(Context context) {
+        Intent intent = new Intent(context, ArticleSyncService.class);
+        if (PendingIntent.getService(context, SYNC_JOB_ID, intent, PendingIntent.FLAG_NO_CREATE) != null) {
+            return;
+        }
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+
+        PendingIntent pendingIntent = PendingIntent.getService(context, SYNC_JOB_ID, intent, 0);
+        alarmManager.setInexactRepeating(AlarmManager.ELAPSED_REALTIME,
+                SystemClock.elapsedRealtime() + SYNC_INTERVAL, SYNC_INTERVAL, pendingIntent);
+    }
+
+    /**
+     * Return true if the device is charging and connected to an unmetered network.
+     * Jobs have these constraints checked by the system, alarms must check them by themselves.
+     */
+    static boolean areConstraintsMet(Context context) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            return false;
+        }
+        NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+        if (activeNetwork == null || !activeNetwork.isConnected() || connectivityManager.isActiveNetworkMetered()) {
+            return false;
+        }
+
+        // The battery status is a sticky broadcast, no receiver is needed to read it
+        Intent batteryStatus = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        return batteryStatus != null && batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+    /**
+     * Request the first page of every topic and store it, revalidating the stored one.
+     * This method performs network and disk I/O and must not be called on the main thread.
+     *
+     * @return true if the articles have been synchronized
+     */
+    static boolean perform(Context context) {
+        // Full pages, which the app uses on any link but a slow one
+        ArticleQuery query = ArticleQuery.fromPreferences(context).withFullPageSize();
+        ArticleRepository repository = ArticleRepository.getInstance(context);
+        // The sync gives way to the loads of the app, which may be running
+        ArticleRepository.Page page = repository.loadPage(query, FIRST_PAGE, ArticleRepository.CachePolicy.NETWORK,
+                null, Priority.BACKGROUND, null);
+        // The process must not be let go before the pages are stored
+        final boolean synced = page != null && !page.isStale() && repository.awaitStores();
+        if (synced) {
+            // Missing bodies are not a failure of the sync, they are requested again by the next one
+            ArticleBodyStore.getInstance(context).prefetch(page.getArticles());
+        }
+        Log.d(LOG_TAG, "Sync of " + query.getUrls().size() + " topics " + (synced ? "completed" : "failed"));
+        return synced;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.hjalmar.android.newsapp.sync;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.os.AsyncTask;
+import android.os.Build;
+
+/**
+ * Runs the periodic {@link ArticleSync} when scheduled by the JobScheduler.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class ArticleSyncJobService extends JobService {
+
+    private AsyncTask<JobParameters, Void, Boolean> mSyncTask;
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        // The job runs on the main thread, perform the sync in background
+        mSyncTask = new AsyncTask<JobParameters, Void, Boolean>() {
+            @Override
+            protected Boolean doInBackground(JobParameters... jobParameters) {
+                return ArticleSync.perform(getApplicationContext());
+            }
+
+            @Override
+            protected void onPostExecute(Boolean synced) {
+                // A failed sync is retried with the job backoff policy
+                jobFinished(params, !synced);
+            }
+        };
+        mSyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, params);
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The constraints are no longer met, stop and retry later
+        if (mSyncTask != null) {
+            mSyncTask.cancel(true);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.hjalmar.android.newsapp.sync;
+
+import android.app.IntentService;
+import android.content.Intent;
+
+/**
+ * Runs the periodic {@link ArticleSync} when triggered by an alarm, before Lollipop.
+ * The sync is skipped if the device is not charging on an unmetered network.
+ */
+public class ArticleSyncService extends IntentService {
+
+    private static final String NAME = ArticleSyncService.class.getSimpleName();
+
+    public ArticleSyncService() {
+        super(NAME);
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        if (ArticleSync.areConstraintsMet(this)) {
+            ArticleSync.perform(this);
+        }
+    }
+
+}
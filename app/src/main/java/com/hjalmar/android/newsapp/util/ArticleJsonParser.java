@@ -0,0 +1,270 @@
+package com.hjalmar.android.newsapp.util;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+import android.util.MalformedJsonException;
+
+import com.hjalmar.android.newsapp.metrics.Metrics;
+import com.hjalmar.android.newsapp.model.Article;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parser of the responses of the Guardian search endpoint.
+ * It only depends on {@link JsonReader} and {@link Article}, so it can be
+ * benchmarked on the JVM as well.
+ */
+public final class ArticleJsonParser {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleJsonParser.class.getSimpleName();
+
+    private enum GuardianApiJsonTags {
+        RESPONSE("response"), RESULTS("results"), TITLE("webTitle"),
+        SECTION("sectionName"), DATE("webPublicationDate"), URL("webUrl"), TAGS("tags"),
+        FIELDS("fields"), THUMBNAIL("thumbnail"), BODY_TEXT("bodyText");
+
+        private final String tag;
+
+        GuardianApiJsonTags(String tag) {
+            this.tag = tag;
+        }
+
+        String tag() {
+            return tag;
+        }
+    }
+
+    private ArticleJsonParser() {
+    }
+
+    /**
+     * Parse the {@link InputStream} as it is received, without ever holding
+     * the whole JSON response from the server in memory.
+     */
+    public static List<Article> readFromStream(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return null;
+        }
+
+        InputStreamReader inputStreamReader = new InputStreamReader(new BufferedInputStream(inputStream), Charset.forName("UTF-8"));
+        JsonReader reader = new JsonReader(inputStreamReader);
+        return extractFeatureFromJson(reader);
+    }
+
+    /**
+     * Return a list of {@link Article} objects that has been built up from
+     * reading the JSON response token by token. Each {@link Article} is created
+     * as soon as its result object has been consumed, so only one result at a time
+     * is held as raw data. The sections and the authors of the articles are shared
+     * through a {@link StringPool} for the duration of the parsing.
+     */
+    public static List<Article> extractFeatureFromJson(JsonReader reader) throws IOException {
+        List<Article> articles = new ArrayList<>();
+        StringPool pool = new StringPool();
+
+        try {
+            // Walk down to response.results[] skipping everything else
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (GuardianApiJsonTags.RESPONSE.tag().equals(reader.nextName())) {
+                    readResponse(reader, articles, pool);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (MalformedJsonException | IllegalStateException e) {
+            // Keep the articles parsed so far, as the non streaming parser did
+            Log.e(LOG_TAG, "Problem parsing the JSON Response", e);
+        }
+
+        return articles;
+    }
+
+    /**
+     * Parse the results of a response requested with the bodyText field, and return their bodies
+     * by article url. Results without a body are left out.
+     */
+    public static Map<String, String> readBodies(InputStream inputStream) throws IOException {
+        Map<String, String> bodies = new HashMap<>();
+        if (inputStream == null) {
+            return bodies;
+        }
+
+        JsonReader reader = new JsonReader(new InputStreamReader(new BufferedInputStream(inputStream), Charset.forName("UTF-8")));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (GuardianApiJsonTags.RESPONSE.tag().equals(reader.nextName())) {
+                    readBodyResponse(reader, bodies);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (MalformedJsonException | IllegalStateException e) {
+            // Keep the bodies parsed so far
+            Log.e(LOG_TAG, "Problem parsing the JSON Response", e);
+        }
+
+        return bodies;
+    }
+
+    /**
+     * Read the response object, adding an {@link Article} for each entry of its results array.
+     */
+    private static void readResponse(JsonReader reader, List<Article> articles, StringPool pool) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (GuardianApiJsonTags.RESULTS.tag().equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Article article = readArticle(reader, pool);
+                    if (article != null) {
+                        articles.add(article);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read a single result object and return the corresponding {@link Article},
+     * or null if one of the required fields is missing.
+     */
+    private static Article readArticle(JsonReader reader, StringPool pool) throws IOException {
+        String articleTitle = null;
+        String sectionName = null;
+        String publicationDate = null;
+        String url = null;
+        String thumbnailUrl = null;
+        List<String> authors = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (GuardianApiJsonTags.TITLE.tag().equals(name)) {
+                articleTitle = reader.nextString();
+            } else if (GuardianApiJsonTags.SECTION.tag().equals(name)) {
+                sectionName = pool.intern(reader.nextString());
+            } else if (GuardianApiJsonTags.DATE.tag().equals(name)) {
+                publicationDate = reader.nextString();
+            } else if (GuardianApiJsonTags.URL.tag().equals(name)) {
+                url = reader.nextString();
+            } else if (GuardianApiJsonTags.TAGS.tag().equals(name)) {
+                authors = readAuthors(reader, pool);
+            } else if (GuardianApiJsonTags.FIELDS.tag().equals(name)) {
+                thumbnailUrl = readField(reader, GuardianApiJsonTags.THUMBNAIL);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (articleTitle == null || sectionName == null || publicationDate == null || url == null) {
+            Log.e(LOG_TAG, "Skipping result with missing fields: " + url);
+            return null;
+        }
+
+        final long start = Metrics.start();
+        Article article = new Article(articleTitle, authors, sectionName, publicationDate, url, thumbnailUrl, pool);
+        Metrics.record(Metrics.Stage.ARTICLE, start);
+        return article;
+    }
+
+    /**
+     * Read the response object, adding the url and the body of each entry of its results array.
+     */
+    private static void readBodyResponse(JsonReader reader, Map<String, String> bodies) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (GuardianApiJsonTags.RESULTS.tag().equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String url = null;
+                    String body = null;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        final String name = reader.nextName();
+                        if (GuardianApiJsonTags.URL.tag().equals(name) && reader.peek() == JsonToken.STRING) {
+                            url = reader.nextString();
+                        } else if (GuardianApiJsonTags.FIELDS.tag().equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                            body = readField(reader, GuardianApiJsonTags.BODY_TEXT);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    if (url != null && body != null && !body.isEmpty()) {
+                        bodies.put(url, body);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Return the value of the given field found in the fields object, or null if there is none.
+     */
+    private static String readField(JsonReader reader, GuardianApiJsonTags field) throws IOException {
+        String value = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (field.tag().equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                value = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return value;
+    }
+
+    /**
+     * Return the pooled list of the titles of the contributors found in the tags array.
+     */
+    private static List<String> readAuthors(JsonReader reader, StringPool pool) throws IOException {
+        List<String> authors = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (GuardianApiJsonTags.TITLE.tag().equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                    authors.add(pool.intern(reader.nextString()));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+
+        return pool.intern(authors);
+    }
+
+}
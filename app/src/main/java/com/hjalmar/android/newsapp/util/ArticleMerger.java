@@ -0,0 +1,95 @@
+package com.hjalmar.android.newsapp.util;
+
+import com.hjalmar.android.newsapp.model.Article;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merges the lists of {@link Article}s returned by several queries into a single list.
+ */
+public final class ArticleMerger {
+
+    public static final Comparator<Article> NEWEST_FIRST = new Comparator<Article>() {
+        @Override
+        public int compare(Article a1, Article a2) {
+            final long t1 = a1.getPublicationTime();
+            final long t2 = a2.getPublicationTime();
+            return t1 > t2 ? -1 : (t1 == t2 ? 0 : 1);
+        }
+    };
+
+    public static final Comparator<Article> OLDEST_FIRST = new Comparator<Article>() {
+        @Override
+        public int compare(Article a1, Article a2) {
+            return NEWEST_FIRST.compare(a2, a1);
+        }
+    };
+
+    private ArticleMerger() {
+    }
+
+    /**
+     * Merge the given lists, each already sorted by the given order, into a single sorted list.
+     * The relative order of the articles of each list is always preserved, so lists sorted
+     * in a different way (e.g. by relevance) are interleaved rather than reordered.
+     * Articles whose url has already been seen, either in a previous list or in the given
+     * set, are dropped. The urls of the merged articles are added to the set.
+     *
+     * @param seenUrls the urls of articles to leave out, or null
+     */
+    public static List<Article> merge(List<List<Article>> sortedLists, Comparator<Article> order, Set<String> seenUrls) {
+        if (seenUrls == null) {
+            seenUrls = new HashSet<>();
+        }
+
+        int size = 0;
+        for (List<Article> list : sortedLists) {
+            size += list.size();
+        }
+        List<Article> merged = new ArrayList<>(size);
+
+        // The lists are few, one for each query, so picking the head of each one is enough
+        final int[] heads = new int[sortedLists.size()];
+        while (true) {
+            int selected = -1;
+            Article selectedArticle = null;
+            for (int i = 0; i < heads.length; i++) {
+                List<Article> list = sortedLists.get(i);
+                if (heads[i] < list.size()) {
+                    Article article = list.get(heads[i]);
+                    if (selectedArticle == null || order.compare(article, selectedArticle) < 0) {
+                        selected = i;
+                        selectedArticle = article;
+                    }
+                }
+            }
+            if (selected == -1) {
+                return merged;
+            }
+
+            heads[selected]++;
+            if (seenUrls.add(selectedArticle.getUrl())) {
+                merged.add(selectedArticle);
+            }
+        }
+    }
+
+    /**
+     * Return the first page of a query ordered by publication date, the newest first,
+     * updated with the articles published since it was loaded. The delta articles replace
+     * the ones of the page with the same url, and the oldest articles of the page are dropped
+     * to keep it within the page size.
+     */
+    public static List<Article> applyDelta(List<Article> delta, List<Article> page, int pageSize) {
+        List<List<Article>> lists = new ArrayList<>(2);
+        lists.add(delta);
+        lists.add(page);
+        List<Article> merged = merge(lists, NEWEST_FIRST, null);
+        return merged.size() > pageSize ? new ArrayList<>(merged.subList(0, pageSize)) : merged;
+    }
+
+}
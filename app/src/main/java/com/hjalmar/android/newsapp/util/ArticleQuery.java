@@ -0,0 +1,266 @@
+package com.hjalmar.android.newsapp.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.preference.PreferenceManager;
+
+import com.hjalmar.android.newsapp.BuildConfig;
+import com.hjalmar.android.newsapp.R;
+import com.hjalmar.android.newsapp.model.Article;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The Guardian requests to perform for the current settings: one URL for each topic,
+ * without the page parameters, and the order used to merge their results.
+ * The requests are shaped by a {@link QueryShape} to what the article list renders.
+ * The page size is picked for the connection when the query is built, and is not part of
+ * its keys: a feed keeps the size it started with, whatever the connection becomes.
+ * The filters of the settings are not part of the requests, they are applied by a {@link LocalQuery}.
+ */
+public class ArticleQuery {
+
+    /**
+     * Separator of the topics in the game topic setting
+     */
+    private static final String TOPIC_SEPARATOR = ",";
+
+    /**
+     * Separator of the article ids in the ids parameter
+     */
+    private static final String ID_SEPARATOR = ",";
+
+    /**
+     * Keys used for the query parameters to build the http request
+     */
+    private enum RequestParameterKey {
+        API_KEY("api-key"), FORMAT("format"), TAG("tag"), SHOW_TAGS("show-tags"), SHOW_FIELDS("show-fields"),
+        Q("q"), ORDER_BY("order-by"), FROM_DATE("from-date"), IDS("ids"),
+        PAGE_SIZE("page-size"), PAGE("page");
+
+        private final String tag;
+
+        RequestParameterKey(String tag) {
+            this.tag = tag;
+        }
+
+        String tag() {
+            return tag;
+        }
+    }
+
+    private final List<String> mUrls;
+    private final String mResultKey;
+    private final LocalQuery.Order mOrderBy;
+    private final Comparator<Article> mOrder;
+    private final int mPageSize;
+    private final int mFullPageSize;
+
+    private ArticleQuery(List<String> urls, String resultKey, LocalQuery.Order orderBy, Comparator<Article> order,
+                         int pageSize, int fullPageSize) {
+        this.mUrls = Collections.unmodifiableList(urls);
+        this.mResultKey = resultKey;
+        this.mOrderBy = orderBy;
+        this.mOrder = order;
+        this.mPageSize = pageSize;
+        this.mFullPageSize = fullPageSize;
+    }
+
+    /**
+     * Build the query described by the settings stored in the default shared preferences.
+     */
+    public static ArticleQuery fromPreferences(Context context) {
+        final SharedPreferences defaultSharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        // Retrieve preferences settings
+        final String gameTopicSetting = defaultSharedPreferences.getString(context.getString(R.string.settings_game_topic_key), context.getString(R.string.settings_game_topic_default));
+        final String orderBySetting = defaultSharedPreferences.getString(context.getString(R.string.settings_order_by_key), context.getString(R.string.settings_order_by_default));
+        final LocalQuery.Order orderBy = LocalQuery.readOrder(context, defaultSharedPreferences);
+
+        // Build a request for each of the topics, asking only for what is displayed
+        final QueryShape shape = QueryShape.forDisplay(context);
+        List<String> urls = new ArrayList<>();
+        StringBuilder resultKey = new StringBuilder();
+        for (String topic : parseTopics(context, gameTopicSetting)) {
+            urls.add(buildRequestUrl(context, topic, orderBySetting, shape));
+            resultKey.append(buildRequestUrl(context, topic, null, shape)).append('\n');
+        }
+
+        // Results of different topics are merged by date, or by reverse date for the oldest first order
+        final Comparator<Article> order = orderBy == LocalQuery.Order.OLDEST
+                ? ArticleMerger.OLDEST_FIRST : ArticleMerger.NEWEST_FIRST;
+
+        return new ArticleQuery(urls, resultKey.toString(), orderBy, order, shape.getPageSize(), shape.getFullPageSize());
+    }
+
+    /**
+     * Return the same query requesting full pages, the ones stored by the background sync.
+     */
+    public ArticleQuery withFullPageSize() {
+        return mPageSize == mFullPageSize ? this
+                : new ArticleQuery(mUrls, mResultKey, mOrderBy, mOrder, mFullPageSize, mFullPageSize);
+    }
+
+    /**
+     * Return the request URLs, one for each topic, without the page size and page parameters.
+     */
+    public List<String> getUrls() {
+        return mUrls;
+    }
+
+    /**
+     * Return a key identifying the query, equal for queries requesting the same articles,
+     * whatever their page size.
+     */
+    public String getKey() {
+        StringBuilder sb = new StringBuilder();
+        for (String url : mUrls) {
+            sb.append(url).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return a key identifying the articles of the query, equal for queries requesting
+     * the same articles in a different order.
+     */
+    public String getResultKey() {
+        return mResultKey;
+    }
+
+    /**
+     * Return the order the articles are requested in.
+     */
+    public LocalQuery.Order getOrderBy() {
+        return mOrderBy;
+    }
+
+    /**
+     * Return the order used to merge the results of the topics.
+     */
+    public Comparator<Article> getOrder() {
+        return mOrder;
+    }
+
+    /**
+     * Return the number of articles requested for each page of a topic,
+     * a shorter page being the last one.
+     */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Return true if the pages requested are full pages, see {@link #withFullPageSize()}.
+     */
+    public boolean hasFullPageSize() {
+        return mPageSize == mFullPageSize;
+    }
+
+    /**
+     * Return true if the topics are requested by publication date, the newest first,
+     * so that the articles published since a page was loaded all go at its top.
+     */
+    public boolean isNewestFirst() {
+        return mOrderBy == LocalQuery.Order.NEWEST;
+    }
+
+    /**
+     * Return the URL requesting the articles of a page published from the given time on,
+     * for a query ordered by {@link #isNewestFirst()}.
+     */
+    public static String deltaUrl(String pageUrl, long fromTime) {
+        return Uri.parse(pageUrl).buildUpon()
+                .appendQueryParameter(RequestParameterKey.FROM_DATE.tag(), DateUtils.formatIsoInstant(fromTime))
+                .toString();
+    }
+
+    /**
+     * Return the URL requesting the bodies of the articles with the given urls, all in one page.
+     */
+    public static String bodiesUrl(Context context, List<String> articleUrls) {
+        // The id of an article is the path of its web url
+        StringBuilder ids = new StringBuilder();
+        for (String articleUrl : articleUrls) {
+            final String path = Uri.parse(articleUrl).getPath();
+            if (path == null || path.length() < 2) {
+                continue;
+            }
+            if (ids.length() > 0) {
+                ids.append(ID_SEPARATOR);
+            }
+            ids.append(path.substring(1));
+        }
+
+        return Uri.parse(BuildConfig.GUARDIAN_REQUEST_URL).buildUpon()
+                .appendQueryParameter(RequestParameterKey.API_KEY.tag(), context.getString(R.string.request_parameter_value_api_key))
+                .appendQueryParameter(RequestParameterKey.FORMAT.tag(), context.getString(R.string.request_parameter_value_format))
+                .appendQueryParameter(RequestParameterKey.IDS.tag(), ids.toString())
+                .appendQueryParameter(RequestParameterKey.SHOW_FIELDS.tag(), context.getString(R.string.request_parameter_value_show_fields_body))
+                .appendQueryParameter(RequestParameterKey.PAGE_SIZE.tag(), String.valueOf(articleUrls.size()))
+                .toString();
+    }
+
+    /**
+     * Return the URL requesting the given page of a topic, in the page size of the query.
+     * It is also the key of the page in the cache.
+     */
+    public String pageUrl(String url, int pageNumber) {
+        return Uri.parse(url).buildUpon()
+                .appendQueryParameter(RequestParameterKey.PAGE_SIZE.tag(), String.valueOf(mPageSize))
+                .appendQueryParameter(RequestParameterKey.PAGE.tag(), String.valueOf(pageNumber))
+                .toString();
+    }
+
+    /**
+     * Return the distinct topics of the comma separated topic setting,
+     * or the default topic if there is none.
+     */
+    private static Set<String> parseTopics(Context context, String gameTopicSetting) {
+        Set<String> topics = new LinkedHashSet<>();
+        for (String topic : gameTopicSetting.split(TOPIC_SEPARATOR)) {
+            final String trimmedTopic = topic.trim();
+            if (!trimmedTopic.isEmpty()) {
+                topics.add(trimmedTopic);
+            }
+        }
+        if (topics.isEmpty()) {
+            topics.add(context.getString(R.string.settings_game_topic_default));
+        }
+        return topics;
+    }
+
+    /**
+     * Return the URL requesting the articles about the given topic, without the page parameters.
+     *
+     * @param orderBy the order-by parameter, or null to leave it out
+     */
+    private static String buildRequestUrl(Context context, String topic, String orderBy, QueryShape shape) {
+        Uri baseUri = Uri.parse(BuildConfig.GUARDIAN_REQUEST_URL);
+        Uri.Builder uriBuilder = baseUri.buildUpon();
+
+        // Append query parameters and their values
+        uriBuilder.appendQueryParameter(RequestParameterKey.API_KEY.tag(), context.getString(R.string.request_parameter_value_api_key));
+        uriBuilder.appendQueryParameter(RequestParameterKey.FORMAT.tag(), context.getString(R.string.request_parameter_value_format));
+        uriBuilder.appendQueryParameter(RequestParameterKey.TAG.tag(), context.getString(R.string.request_parameter_value_tag));
+        if (shape.showsAuthors()) {
+            uriBuilder.appendQueryParameter(RequestParameterKey.SHOW_TAGS.tag(), context.getString(R.string.request_parameter_value_show_tags));
+        }
+        if (shape.showsThumbnails()) {
+            uriBuilder.appendQueryParameter(RequestParameterKey.SHOW_FIELDS.tag(), context.getString(R.string.request_parameter_value_show_fields));
+        }
+        uriBuilder.appendQueryParameter(RequestParameterKey.Q.tag(), topic);
+        if (orderBy != null) {
+            uriBuilder.appendQueryParameter(RequestParameterKey.ORDER_BY.tag(), orderBy);
+        }
+
+        return uriBuilder.toString();
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.hjalmar.android.newsapp.util;
+
+/**
+ * Helpers to handle the dates returned by the Guardian API,
+ * formatted as ISO 8601 UTC instants like 2018-06-24T10:15:30Z.
+ */
+public final class DateUtils {
+
+    /**
+     * Value returned when a date can't be parsed
+     */
+    public static final long INVALID_TIME = Long.MIN_VALUE;
+
+    /**
+     * Length of the date part of an ISO 8601 instant, e.g. 2018-06-24
+     */
+    public static final int DATE_STRING_LENGTH = 10;
+
+    private static final int DATE_TIME_STRING_LENGTH = 19;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60L;
+
+    private DateUtils() {
+    }
+
+    /**
+     * Return the epoch milliseconds of an ISO 8601 UTC instant, or {@link #INVALID_TIME}.
+     * The digits are read in place, so no object is allocated.
+     */
+    public static long parseIsoInstant(String isoInstant) {
+        if (isoInstant == null || isoInstant.length() < DATE_TIME_STRING_LENGTH) {
+            return INVALID_TIME;
+        }
+
+        final int year = parseDigits(isoInstant, 0, 4);
+        final int month = parseDigits(isoInstant, 5, 7);
+        final int day = parseDigits(isoInstant, 8, 10);
+        final int hours = parseDigits(isoInstant, 11, 13);
+        final int minutes = parseDigits(isoInstant, 14, 16);
+        final int seconds = parseDigits(isoInstant, 17, 19);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hours < 0 || minutes < 0 || seconds < 0) {
+            return INVALID_TIME;
+        }
+
+        final long epochSeconds = daysFromCivil(year, month, day) * SECONDS_PER_DAY
+                + hours * 3600L + minutes * 60L + seconds;
+        return epochSeconds * MILLIS_PER_SECOND;
+    }
+
+    /**
+     * Return the ISO 8601 UTC instant of the given epoch milliseconds, to the second,
+     * the inverse of {@link #parseIsoInstant(String)} for the dates of the Guardian API.
+     */
+    public static String formatIsoInstant(long time) {
+        final long epochSeconds = floorDiv(time, MILLIS_PER_SECOND);
+        final long days = floorDiv(epochSeconds, SECONDS_PER_DAY);
+        final int secondOfDay = (int) (epochSeconds - days * SECONDS_PER_DAY);
+
+        // Days from 0000-03-01, so that the leap day is the last day of the year
+        final long z = days + 719468;
+        final long era = floorDiv(z, 146097);
+        final int dayOfEra = (int) (z - era * 146097);
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        StringBuilder sb = new StringBuilder(DATE_TIME_STRING_LENGTH + 1);
+        appendDigits(sb, year, 4).append('-');
+        appendDigits(sb, month, 2).append('-');
+        appendDigits(sb, day, 2).append('T');
+        appendDigits(sb, secondOfDay / 3600, 2).append(':');
+        appendDigits(sb, secondOfDay / 60 % 60, 2).append(':');
+        appendDigits(sb, secondOfDay % 60, 2).append('Z');
+        return sb.toString();
+    }
+
+    /**
+     * Return the date part of an ISO 8601 instant, or the whole string if it is shorter.
+     */
+    public static String formatDateLabel(String isoInstant) {
+        if (isoInstant == null) {
+            return "";
+        }
+        return isoInstant.length() > DATE_STRING_LENGTH ? isoInstant.substring(0, DATE_STRING_LENGTH) : isoInstant;
+    }
+
+    private static int parseDigits(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static StringBuilder appendDigits(StringBuilder sb, long value, int width) {
+        final String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits);
+    }
+
+    private static long floorDiv(long x, long y) {
+        final long quotient = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? quotient - 1 : quotient;
+    }
+
+    /**
+     * Return the number of days from 1970-01-01 of the given proleptic Gregorian date.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.hjalmar.android.newsapp.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import com.hjalmar.android.newsapp.R;
+import com.hjalmar.android.newsapp.model.Article;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The order and the filters of the settings applied on the device to the articles already
+ * loaded, so that changing them doesn't need a new request when the loaded articles are enough.
+ * The relevance of an article is its position in the response of a query ordered by relevance,
+ * which is kept in the order of the loaded list and can be restored after sorting it by date.
+ */
+public final class LocalQuery {
+
+    /**
+     * The orders of the articles, the same as the order-by setting
+     */
+    public enum Order {
+        NEWEST, OLDEST, RELEVANCE
+    }
+
+    /**
+     * Lower bound of the publication time when the articles are not filtered by date
+     */
+    static final long NO_DATE_LIMIT = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Separator of the sections in the section setting
+     */
+    private static final String SECTION_SEPARATOR = ",";
+
+    private final Order mOrder;
+    private final Set<String> mSections;
+    private final long mFromTime;
+
+    /**
+     * @param sections the names of the sections to keep, ignoring case, or an empty set to keep all of them
+     * @param fromTime the time from which the articles are kept, or {@link #NO_DATE_LIMIT}
+     */
+    LocalQuery(Order order, Set<String> sections, long fromTime) {
+        this.mOrder = order;
+        this.mSections = sections;
+        this.mFromTime = fromTime;
+    }
+
+    /**
+     * Build the order and the filters described by the settings stored in the default shared preferences.
+     */
+    public static LocalQuery fromPreferences(Context context) {
+        final SharedPreferences defaultSharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        final String sectionsSetting = defaultSharedPreferences.getString(context.getString(R.string.settings_sections_key), context.getString(R.string.settings_sections_default));
+        final String publishedWithinSetting = defaultSharedPreferences.getString(context.getString(R.string.settings_published_within_key), context.getString(R.string.settings_published_within_default));
+
+        long fromTime = NO_DATE_LIMIT;
+        try {
+            final int days = Integer.parseInt(publishedWithinSetting);
+            if (days > 0) {
+                fromTime = System.currentTimeMillis() - days * MILLIS_PER_DAY;
+            }
+        } catch (NumberFormatException e) {
+            // Not filtered by date
+        }
+
+        return new LocalQuery(readOrder(context, defaultSharedPreferences), parseSections(sectionsSetting), fromTime);
+    }
+
+    /**
+     * Return the order of the order-by setting stored in the given preferences.
+     */
+    static Order readOrder(Context context, SharedPreferences preferences) {
+        final String orderBySetting = preferences.getString(context.getString(R.string.settings_order_by_key), context.getString(R.string.settings_order_by_default));
+        if (orderBySetting.equals(context.getString(R.string.settings_order_by_oldest_value))) {
+            return Order.OLDEST;
+        } else if (orderBySetting.equals(context.getString(R.string.settings_order_by_relevance_value))) {
+            return Order.RELEVANCE;
+        }
+        return Order.NEWEST;
+    }
+
+    /**
+     * Return the distinct sections of the comma separated section setting.
+     */
+    static Set<String> parseSections(String sectionsSetting) {
+        Set<String> sections = new LinkedHashSet<>();
+        for (String section : sectionsSetting.split(SECTION_SEPARATOR)) {
+            final String trimmedSection = section.trim();
+            if (!trimmedSection.isEmpty()) {
+                sections.add(trimmedSection);
+            }
+        }
+        return sections;
+    }
+
+    public Order getOrder() {
+        return mOrder;
+    }
+
+    /**
+     * Return true if the articles loaded in the given order can be put in the order of this query.
+     * The dates of the articles are enough to sort a complete result, but the relevance is only
+     * known when it is the order they have been loaded in. A partial result, i.e. its first pages,
+     * can only be filtered: sorting it differently would not give the first articles of the new order.
+     *
+     * @param isComplete true if the articles are all the ones of the query
+     */
+    public boolean canApply(Order loadedOrder, boolean isComplete) {
+        return loadedOrder == mOrder || (isComplete && mOrder != Order.RELEVANCE);
+    }
+
+    /**
+     * Return the given articles, loaded in the given order, filtered and sorted by this query.
+     * The sort keys are computed once for each article, and articles with the same key keep
+     * their relative order. The list itself is returned when there is nothing to change.
+     */
+    public List<Article> apply(List<Article> articles, Order loadedOrder) {
+        List<Article> filtered = filter(articles);
+        if (mOrder == loadedOrder || filtered.size() < 2) {
+            return filtered;
+        }
+
+        final int size = filtered.size();
+        final long[] keys = new long[size];
+        Integer[] indexes = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            // The loaded position is the relevance rank, the lowest being the most relevant
+            keys[i] = mOrder == Order.RELEVANCE ? i : filtered.get(i).getPublicationTime();
+            indexes[i] = i;
+        }
+
+        // Invalid dates are the lowest keys, so they go last with the newest first like in ArticleMerger
+        final boolean descending = mOrder == Order.NEWEST;
+        Arrays.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                final long k1 = keys[i1];
+                final long k2 = keys[i2];
+                final int comparison = k1 < k2 ? -1 : (k1 == k2 ? 0 : 1);
+                return descending ? -comparison : comparison;
+            }
+        });
+
+        List<Article> sorted = new ArrayList<>(size);
+        for (Integer index : indexes) {
+            sorted.add(filtered.get(index));
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+
+    private List<Article> filter(List<Article> articles) {
+        if (mSections.isEmpty() && mFromTime == NO_DATE_LIMIT) {
+            return articles;
+        }
+        List<Article> filtered = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            if (isInSections(article) && (mFromTime == NO_DATE_LIMIT || article.getPublicationTime() >= mFromTime)) {
+                filtered.add(article);
+            }
+        }
+        return filtered.size() == articles.size() ? articles : Collections.unmodifiableList(filtered);
+    }
+
+    private boolean isInSections(Article article) {
+        if (mSections.isEmpty()) {
+            return true;
+        }
+        final String sectionName = article.getSectionName();
+        if (sectionName == null) {
+            return false;
+        }
+        for (String section : mSections) {
+            if (section.equalsIgnoreCase(sectionName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
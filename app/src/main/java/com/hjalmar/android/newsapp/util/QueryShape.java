@@ -0,0 +1,109 @@
+package com.hjalmar.android.newsapp.util;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import com.hjalmar.android.newsapp.R;
+import com.hjalmar.android.newsapp.network.ConnectivityMonitor;
+import com.hjalmar.android.newsapp.network.NetworkQuality;
+
+/**
+ * What the article list actually renders, from which the smallest Guardian request is derived:
+ * the contributor tags are only asked for when the authors are shown, the thumbnail field
+ * only when the thumbnails are, and a page holds as many screens of rows as the
+ * {@link NetworkQuality} of the connection allows, two unless the link is slow.
+ * The full page size, the one of the other links, is also kept: it is the size of the pages
+ * the background sync stores.
+ * The default result fields can't be left out, the API has no parameter for them.
+ */
+public final class QueryShape {
+
+    /**
+     * Bounds of the page size, the upper one well below the limit of the API
+     */
+    static final int MIN_PAGE_SIZE = 10;
+    static final int MAX_PAGE_SIZE = 50;
+
+    /**
+     * Row height used when the theme doesn't define one
+     */
+    private static final int DEFAULT_ROW_HEIGHT_DP = 64;
+
+    private final boolean mShowAuthors;
+    private final boolean mShowThumbnails;
+    private final int mPageSize;
+    private final int mFullPageSize;
+
+    QueryShape(boolean showAuthors, boolean showThumbnails, int pageSize, int fullPageSize) {
+        this.mShowAuthors = showAuthors;
+        this.mShowThumbnails = showThumbnails;
+        this.mPageSize = pageSize;
+        this.mFullPageSize = fullPageSize;
+    }
+
+    /**
+     * Return the shape of the requests for the article rows as configured in the resources,
+     * sized for the screen of the device and the current connection.
+     */
+    public static QueryShape forDisplay(Context context) {
+        Resources resources = context.getResources();
+        DisplayMetrics displayMetrics = resources.getDisplayMetrics();
+
+        int rowHeight = (int) (DEFAULT_ROW_HEIGHT_DP * displayMetrics.density);
+        TypedValue value = new TypedValue();
+        if (context.getTheme().resolveAttribute(android.R.attr.listPreferredItemHeight, value, true)) {
+            rowHeight = (int) value.getDimension(displayMetrics);
+        }
+
+        // The longest side, so that the page size doesn't change when the device is rotated
+        final int screenLength = Math.max(displayMetrics.widthPixels, displayMetrics.heightPixels);
+        final NetworkQuality quality = ConnectivityMonitor.getInstance(context).getQuality();
+        return new QueryShape(resources.getBoolean(R.bool.article_item_show_authors),
+                resources.getBoolean(R.bool.article_item_show_thumbnail),
+                pageSizeFor(screenLength, rowHeight, quality.getScreensPerPage()),
+                pageSizeFor(screenLength, rowHeight, NetworkQuality.UNMETERED.getScreensPerPage()));
+    }
+
+    /**
+     * Return the number of articles to request for the given number of screens
+     * of the given length in rows of the given height.
+     */
+    static int pageSizeFor(int screenLength, int rowHeight, int screensPerPage) {
+        if (rowHeight <= 0) {
+            return MIN_PAGE_SIZE;
+        }
+        final int visibleRows = (screenLength + rowHeight - 1) / rowHeight;
+        return Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, visibleRows * screensPerPage));
+    }
+
+    /**
+     * Return true if the contributor tags must be requested.
+     */
+    public boolean showsAuthors() {
+        return mShowAuthors;
+    }
+
+    /**
+     * Return true if the thumbnail field must be requested.
+     */
+    public boolean showsThumbnails() {
+        return mShowThumbnails;
+    }
+
+    /**
+     * Return the number of articles requested for each page on the current connection.
+     */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Return the number of articles requested for each page on a connection that isn't slow.
+     */
+    public int getFullPageSize() {
+        return mFullPageSize;
+    }
+
+}
@@ -1,24 +1,21 @@
 package com.hjalmar.android.newsapp.util;
 
-import android.text.TextUtils;
+import android.os.CancellationSignal;
 import android.util.Log;
 
+import com.hjalmar.android.newsapp.data.ArticleCache;
+import com.hjalmar.android.newsapp.metrics.Metrics;
 import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.network.CircuitBreaker;
+import com.hjalmar.android.newsapp.network.HttpClient;
+import com.hjalmar.android.newsapp.network.HttpResponse;
+import com.hjalmar.android.newsapp.network.RetryPolicy;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by hjalmar
@@ -32,33 +29,9 @@ public class QueryUtils {
     private static final String LOG_TAG = QueryUtils.class.getSimpleName();
 
     /**
-     * The timeout in milliseconds to estabilish a connection
+     * Shared by all the requests, as they all go to the Guardian API
      */
-    private static final int CONNECT_TIMEOUT = 15000;
-
-    /**
-     * The timeout in milliseconds when reading from the input stream when a connection is estabilished to a resource
-     */
-    private static final int READ_TIMEOUT = 10000;
-
-    private enum GuardianApiJsonTags {
-        RESPONSE("response"), RESULTS("results"), TITLE("webTitle"),
-        SECTION("sectionName"), DATE("webPublicationDate"), URL("webUrl"), TAGS("tags");
-
-        private final String tag;
-
-        GuardianApiJsonTags(String tag) {
-            this.tag = tag;
-        }
-
-        String tag() {
-            return tag;
-        }
-    }
-
-    private enum HttpRequestMethod {
-        GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE
-    }
+    private static final CircuitBreaker sCircuitBreaker = new CircuitBreaker();
 
     /**
      * Create a private constructor because no one should ever create a {@link QueryUtils} object.
@@ -69,22 +42,62 @@ public class QueryUtils {
     }
 
     /**
-     * Query the Guardian REST API and return a list of {@link Article} objects.
+     * Query the Guardian REST API and return a cache entry holding the list of {@link Article} objects.
+     * If a previously cached entry is given, the request is conditional and the cached
+     * articles are reused when the server reports them as not modified.
+     * The connection is aborted as soon as the given signal, if any, is cancelled.
      */
-    public static List<Article> fetchArticleData(String requestUrl) {
+    public static ArticleCache.Entry fetchArticleData(String requestUrl, ArticleCache.Entry cachedEntry,
+                                                      CancellationSignal signal) {
         // Create URL object
         URL url = createUrl(requestUrl);
 
-        // Perform HTTP request to the URL and receive a JSON response back
-        String jsonResponse = "";
+        // Perform HTTP request to the URL and parse the JSON response while it is received
+        return makeHttpRequest(url, cachedEntry, signal);
+    }
+
+    /**
+     * Query the Guardian REST API for the bodies of articles, and return them by article url,
+     * or null if the request was not successful. The bodies are prefetched in background,
+     * so a failed request is not retried: it is made again by the next prefetch.
+     */
+    public static Map<String, String> fetchArticleBodies(String requestUrl) {
+        URL url = createUrl(requestUrl);
+        if (url == null) {
+            return null;
+        }
+        if (!sCircuitBreaker.allowRequest()) {
+            Log.w(LOG_TAG, "Server failing, request skipped: " + url.getPath());
+            Metrics.increment(Metrics.Counter.CIRCUIT_OPEN);
+            return null;
+        }
+
+        HttpResponse response = null;
         try {
-            jsonResponse = makeHttpRequest(url);
+            Metrics.increment(Metrics.Counter.REQUEST);
+            response = HttpClient.get(url, null, null);
+            if (RetryPolicy.isServerFailure(response.getCode())) {
+                sCircuitBreaker.onFailure();
+            } else {
+                sCircuitBreaker.onSuccess();
+            }
+
+            if (!response.isSuccessful()) {
+                Log.e(LOG_TAG, "Http response code not successful: " + response.getCode() + " (" + response.getMessage() + ")");
+                return null;
+            }
+            return ArticleJsonParser.readBodies(response.getBody());
         } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem making the HTTP request.", e);
+            Log.e(LOG_TAG, "IOException caught while requesting the article bodies", e);
+            sCircuitBreaker.onFailure();
+            return null;
+        } finally {
+            if (response != null) {
+                response.close();
+                Metrics.add(Metrics.Counter.WIRE_BYTES, response.getWireBytes());
+                Metrics.add(Metrics.Counter.BODY_BYTES, response.getDecodedBytes());
+            }
         }
-
-        // Extract relevant fields from the JSON response and return a list of {@link Article}s
-        return extractFeatureFromJson(jsonResponse);
     }
 
     /**
@@ -102,110 +115,179 @@ public class QueryUtils {
     }
 
     /**
-     * Make an HTTP request to the given URL and return a String as the response.
+     * Make an HTTP request to the given URL and return a cache entry with the list of
+     * {@link Article}s parsed from the response body, or null if the request was not successful.
+     * Transient failures are retried according to the {@link RetryPolicy}, and no request is made
+     * while the {@link CircuitBreaker} is open, so that the caller can fall back to the stored articles.
      */
-    private static String makeHttpRequest(URL url) throws IOException {
+    private static ArticleCache.Entry makeHttpRequest(URL url, ArticleCache.Entry cachedEntry,
+                                                      CancellationSignal signal) {
         if (url == null) {
-            return "";
+            return null;
         }
 
-        String jsonResponse = "";
-        HttpURLConnection urlConnection = null;
-        InputStream inputStream = null;
-        try {
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setRequestMethod(HttpRequestMethod.GET.toString());
-            urlConnection.setConnectTimeout(CONNECT_TIMEOUT);
-            urlConnection.setReadTimeout(READ_TIMEOUT);
-            urlConnection.connect();
-
-            final int responseCode = urlConnection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                inputStream = urlConnection.getInputStream();
-                jsonResponse = readFromStream(inputStream);
-            } else {
-                Log.e(LOG_TAG, "Http response code not successful: " + responseCode + " (" + urlConnection.getResponseMessage() + ")");
+        for (int attempt = 1; ; attempt++) {
+            if (signal != null && signal.isCanceled()) {
+                return null;
             }
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "IOException caught while requesting data from server", e);
-        } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
+            if (!sCircuitBreaker.allowRequest()) {
+                Log.w(LOG_TAG, "Server failing, request skipped: " + url.getPath());
+                Metrics.increment(Metrics.Counter.CIRCUIT_OPEN);
+                return null;
             }
-            if (inputStream != null) {
-                // Closing the input stream could throw an IOException, which is why
-                // the makeHttpRequest(URL url) method signature specifies than an IOException
-                // could be thrown.
-                inputStream.close();
+
+            Attempt result = performRequest(url, cachedEntry, signal, attempt);
+            if (result.mEntry != null || result.mRetryDelay == RetryPolicy.NO_RETRY) {
+                return result.mEntry;
+            }
+
+            Log.d(LOG_TAG, "Retrying " + url.getPath() + " in " + result.mRetryDelay + " ms");
+            Metrics.increment(Metrics.Counter.RETRY);
+            if (!waitForRetry(result.mRetryDelay, signal)) {
+                return null;
             }
         }
-        return jsonResponse;
     }
 
     /**
-     * Convert the {@link InputStream} into a String which contains the
-     * whole JSON response from the server.
+     * Perform a single attempt of the request, reporting its outcome to the circuit breaker.
      */
-    private static String readFromStream(InputStream inputStream) throws IOException {
-        StringBuilder output = new StringBuilder();
-        if (inputStream != null) {
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
-            BufferedReader reader = new BufferedReader(inputStreamReader);
-            String line = reader.readLine();
-            while (line != null) {
-                output.append(line);
-                line = reader.readLine();
+    private static Attempt performRequest(URL url, ArticleCache.Entry cachedEntry, CancellationSignal signal,
+                                          int attempt) {
+        Attempt result = new Attempt();
+        HttpResponse response = null;
+        try {
+            Metrics.increment(Metrics.Counter.REQUEST);
+            response = HttpClient.get(url,
+                    cachedEntry != null ? cachedEntry.getETag() : null,
+                    cachedEntry != null ? cachedEntry.getLastModified() : null);
+
+            if (signal != null) {
+                // Called straight away if the signal has been cancelled while connecting
+                final HttpResponse pendingResponse = response;
+                signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                    @Override
+                    public void onCancel() {
+                        pendingResponse.cancel();
+                    }
+                });
+            }
+
+            if (response.isNotModified() && cachedEntry != null) {
+                // Reuse the stored result, keeping the validators the server may have updated
+                Metrics.increment(Metrics.Counter.NOT_MODIFIED);
+                result.mEntry = new ArticleCache.Entry(cachedEntry.getArticles(),
+                        response.getETag() != null ? response.getETag() : cachedEntry.getETag(),
+                        response.getLastModified() != null ? response.getLastModified() : cachedEntry.getLastModified(),
+                        cachedEntry.getBodySize(), System.currentTimeMillis());
+            } else if (response.isSuccessful()) {
+                final long parseStart = Metrics.start();
+                List<Article> articles = ArticleJsonParser.readFromStream(response.getBody());
+                if (parseStart != 0) {
+                    // The body is parsed while it is downloaded, tell the two apart
+                    final long downloadNanos = response.getReadNanos();
+                    Metrics.recordDuration(Metrics.Stage.DOWNLOAD, downloadNanos);
+                    Metrics.recordDuration(Metrics.Stage.PARSE, System.nanoTime() - parseStart - downloadNanos);
+                }
+                if (articles != null) {
+                    result.mEntry = new ArticleCache.Entry(articles, response.getETag(), response.getLastModified(),
+                            response.getDecodedBytes(), System.currentTimeMillis());
+                }
+            } else {
+                Log.e(LOG_TAG, "Http response code not successful: " + response.getCode() + " (" + response.getMessage() + ")");
+                if (RetryPolicy.isRetryable(response.getCode())) {
+                    result.mRetryDelay = RetryPolicy.getDelayMillis(attempt, response.getRetryAfter());
+                }
+            }
+
+            if (RetryPolicy.isServerFailure(response.getCode())) {
+                sCircuitBreaker.onFailure();
+            } else {
+                sCircuitBreaker.onSuccess();
+            }
+        } catch (IOException e) {
+            if (signal != null && signal.isCanceled()) {
+                Log.d(LOG_TAG, "Request cancelled: " + url.getPath());
+            } else {
+                Log.e(LOG_TAG, "IOException caught while requesting data from server", e);
+                sCircuitBreaker.onFailure();
+                result.mRetryDelay = RetryPolicy.getDelayMillis(attempt, null);
+            }
+        } finally {
+            if (signal != null) {
+                signal.setOnCancelListener(null);
+            }
+            if (response != null) {
+                response.close();
+                logTransfer(url, response, result.mEntry);
             }
         }
-        return output.toString();
+        return result;
     }
 
     /**
-     * Return a list of {@link Article} objects that has been built up from
-     * parsing a JSON response.
+     * Wait for the given delay before retrying a request.
+     * Return false if the signal has been cancelled in the meantime.
      */
-    private static List<Article> extractFeatureFromJson(String jsonResponse) {
-        // If the JSON string is empty or null, then don't go forward
-        if (TextUtils.isEmpty(jsonResponse)) {
-            return null;
+    private static boolean waitForRetry(long delayMillis, CancellationSignal signal) {
+        final Object lock = new Object();
+        if (signal != null) {
+            signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+                    synchronized (lock) {
+                        lock.notifyAll();
+                    }
+                }
+            });
         }
 
-        List<Article> articles = new ArrayList<>();
-
         try {
-            // Parse the response given by the JSON response string and
-            // build up a list of Article objects with the corresponding data.
-            JSONObject root = new JSONObject(jsonResponse);
-            JSONObject response = root.getJSONObject(GuardianApiJsonTags.RESPONSE.tag());
-            JSONArray jsonResultsArray = response.getJSONArray(GuardianApiJsonTags.RESULTS.tag());
-
-            // For each result in the jsonResultsArray, create an {@link Article} object
-            for (int i = 0; i < jsonResultsArray.length(); i++) {
-                JSONObject jsonResultObject = jsonResultsArray.getJSONObject(i);
-
-                String articleTitle = jsonResultObject.getString(GuardianApiJsonTags.TITLE.tag());
-                String sectionName = jsonResultObject.getString(GuardianApiJsonTags.SECTION.tag());
-                String publicationDate = jsonResultObject.getString(GuardianApiJsonTags.DATE.tag());
-                String url = jsonResultObject.getString(GuardianApiJsonTags.URL.tag());
-
-                // Fill authors list if found in tags array
-                List<String> authors = new ArrayList<>();
-                JSONArray jsonTagsArray = jsonResultObject.getJSONArray(GuardianApiJsonTags.TAGS.tag());
-                if (jsonTagsArray != null && jsonTagsArray.length() != 0) {
-                    for (int j = 0; j < jsonTagsArray.length(); j++) {
-                        JSONObject jsonTagObject = jsonTagsArray.getJSONObject(j);
-                        authors.add(jsonTagObject.getString(GuardianApiJsonTags.TITLE.tag()));
-                    }
+            final long deadline = System.currentTimeMillis() + delayMillis;
+            synchronized (lock) {
+                long remaining = delayMillis;
+                while (remaining > 0 && (signal == null || !signal.isCanceled())) {
+                    lock.wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
                 }
-
-                Article article = new Article(articleTitle, authors, sectionName, publicationDate, url);
-                articles.add(article);
             }
-        } catch (JSONException e) {
-            Log.e(LOG_TAG, "Problem parsing the JSON Response", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (signal != null) {
+                signal.setOnCancelListener(null);
+            }
         }
+        return signal == null || !signal.isCanceled();
+    }
 
-        return articles;
+    /**
+     * Log how many bytes have been transferred for a request and how many have been saved
+     * by compression or by reusing the stored result.
+     */
+    private static void logTransfer(URL url, HttpResponse response, ArticleCache.Entry entry) {
+        final long wireBytes = response.getWireBytes();
+        Metrics.add(Metrics.Counter.WIRE_BYTES, wireBytes);
+        final long bodyBytes = response.isNotModified() && entry != null ? entry.getBodySize() : response.getDecodedBytes();
+        if (!response.isNotModified()) {
+            Metrics.add(Metrics.Counter.BODY_BYTES, bodyBytes);
+        }
+        final long savedBytes = Math.max(0, bodyBytes - wireBytes);
+        final long savedPercent = bodyBytes > 0 ? savedBytes * 100 / bodyBytes : 0;
+        // The size of each article shows what the shape of the query costs, whatever the page size
+        final int articleCount = entry != null ? entry.getArticles().size() : 0;
+        final String perArticle = articleCount > 0 ? ", " + bodyBytes / articleCount + " bytes per article" : "";
+        Log.d(LOG_TAG, url.getPath() + " " + response.getCode() + ": " + wireBytes + " bytes transferred for a "
+                + bodyBytes + " bytes body, " + savedBytes + " bytes (" + savedPercent + "%) saved" + perArticle);
+    }
+
+    /**
+     * Outcome of a single attempt of a request
+     */
+    private static class Attempt {
+        private ArticleCache.Entry mEntry;
+        private long mRetryDelay = RetryPolicy.NO_RETRY;
     }
 
 }
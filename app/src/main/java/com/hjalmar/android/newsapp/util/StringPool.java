@@ -0,0 +1,85 @@
+package com.hjalmar.android.newsapp.util;
+
+import com.hjalmar.android.newsapp.model.Article;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares a single instance of each distinct value seen while building a list of articles,
+ * so that the few sections and the recurring authors of a feed are held in memory once,
+ * however many articles refer to them. Unlike {@link String#intern()}, the values are
+ * released with the pool, which lives as long as the parsing or the query that uses it.
+ * A pool is not thread safe.
+ */
+public final class StringPool {
+
+    private final Map<String, String> mStrings = new HashMap<>();
+
+    private final Map<List<String>, List<String>> mLists = new HashMap<>();
+
+    /**
+     * The authors line of each pooled list, which is its own key
+     */
+    private final Map<List<String>, String> mAuthorsLines = new IdentityHashMap<>();
+
+    /**
+     * Return the instance of the pool equal to the given string, adding it if there is none.
+     */
+    public String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        String pooled = mStrings.get(string);
+        if (pooled == null) {
+            mStrings.put(string, string);
+            pooled = string;
+        }
+        return pooled;
+    }
+
+    /**
+     * Return an unmodifiable list of the pool equal to the given one, adding a copy of it
+     * if there is none, so that the articles of the same authors share their list as well.
+     * Its strings are expected to be already interned.
+     */
+    public List<String> intern(List<String> strings) {
+        if (strings == null || strings.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> pooled = mLists.get(strings);
+        if (pooled == null) {
+            pooled = Collections.unmodifiableList(new ArrayList<>(strings));
+            mLists.put(pooled, pooled);
+        }
+        return pooled;
+    }
+
+    /**
+     * Return the authors of a list returned by {@link #intern(List)} joined in a single line,
+     * joining them only the first time the list is seen.
+     */
+    public String authorsLine(List<String> authors) {
+        if (authors.isEmpty()) {
+            return "";
+        }
+        String line = mAuthorsLines.get(authors);
+        if (line == null) {
+            line = Article.buildAuthorsString(authors);
+            mAuthorsLines.put(authors, line);
+        }
+        return line;
+    }
+
+    /**
+     * Return the number of distinct strings in the pool.
+     */
+    public int size() {
+        return mStrings.size();
+    }
+
+}
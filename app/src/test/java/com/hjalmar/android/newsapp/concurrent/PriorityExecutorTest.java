@@ -0,0 +1,38 @@
+package com.hjalmar.android.newsapp.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.PriorityBlockingQueue;
+
+import static org.junit.Assert.assertSame;
+
+public class PriorityExecutorTest {
+
+    private static PriorityExecutor.Task<Void> task(Priority priority) {
+        return new PriorityExecutor.Task<>(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, null, priority);
+    }
+
+    @Test
+    public void tasks_orderedByPriorityThenSubmission() {
+        PriorityExecutor.Task<Void> background = task(Priority.BACKGROUND);
+        PriorityExecutor.Task<Void> firstPrefetch = task(Priority.PREFETCH);
+        PriorityExecutor.Task<Void> secondPrefetch = task(Priority.PREFETCH);
+        PriorityExecutor.Task<Void> visible = task(Priority.VISIBLE);
+
+        PriorityBlockingQueue<PriorityExecutor.Task<?>> queue = new PriorityBlockingQueue<>();
+        queue.add(background);
+        queue.add(secondPrefetch);
+        queue.add(visible);
+        queue.add(firstPrefetch);
+
+        assertSame(visible, queue.poll());
+        assertSame(firstPrefetch, queue.poll());
+        assertSame(secondPrefetch, queue.poll());
+        assertSame(background, queue.poll());
+    }
+
+}
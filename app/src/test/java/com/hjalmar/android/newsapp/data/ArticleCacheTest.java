@@ -0,0 +1,31 @@
+package com.hjalmar.android.newsapp.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArticleCacheTest {
+
+    @Test
+    public void buildMatchQuery_prefixesEveryWord() {
+        assertEquals("last* of* us*", ArticleCache.buildMatchQuery("Last of Us"));
+    }
+
+    @Test
+    public void buildMatchQuery_dropsOperatorsAndPunctuation() {
+        assertEquals("zelda* botw*", ArticleCache.buildMatchQuery("  \"zelda\" - (botw)* "));
+    }
+
+    @Test
+    public void buildMatchQuery_matchesIndexedNonAsciiWords() {
+        // The index folds the case of ASCII letters only, so both sides are lower cased
+        assertEquals("\u00e9lys\u00e9e*", ArticleCache.buildMatchQuery("\u00c9lys\u00e9e"));
+        assertEquals("palais de l'\u00e9lys\u00e9e", ArticleCache.normalize("Palais de l'\u00c9lys\u00e9e"));
+    }
+
+    @Test
+    public void buildMatchQuery_emptyQuery() {
+        assertEquals("", ArticleCache.buildMatchQuery(" ,; "));
+    }
+
+}
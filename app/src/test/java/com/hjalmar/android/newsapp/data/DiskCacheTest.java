@@ -0,0 +1,48 @@
+package com.hjalmar.android.newsapp.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DiskCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() throws IOException {
+        DiskCache cache = new DiskCache(mFolder.getRoot(), 150);
+        cache.put("https://media.guim.co.uk/a.jpg", new ByteArrayInputStream(new byte[100]));
+        mFolder.getRoot().listFiles()[0].setLastModified(System.currentTimeMillis() - 60000);
+        cache.put("https://media.guim.co.uk/b.jpg", new ByteArrayInputStream(new byte[100]));
+
+        assertNull(cache.get("https://media.guim.co.uk/a.jpg"));
+        assertNotNull(cache.get("https://media.guim.co.uk/b.jpg"));
+    }
+
+    @Test
+    public void put_leavesFilesBeingWritten() throws IOException {
+        // A large file another thread is still writing, older than the one stored
+        File tempFile = new File(mFolder.getRoot(), "0123abcd.tmp42");
+        FileOutputStream outputStream = new FileOutputStream(tempFile);
+        outputStream.write(new byte[1000]);
+        outputStream.close();
+        tempFile.setLastModified(System.currentTimeMillis() - 60000);
+
+        DiskCache cache = new DiskCache(mFolder.getRoot(), 150);
+        cache.put("https://media.guim.co.uk/a.jpg", new ByteArrayInputStream(new byte[100]));
+
+        assertTrue(tempFile.exists());
+        assertNotNull(cache.get("https://media.guim.co.uk/a.jpg"));
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.hjalmar.android.newsapp.data;
+
+import com.hjalmar.android.newsapp.model.Article;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FeedSnapshotTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private static List<Article> roundTrip(String savedKey, String loadedKey, List<Article> articles) throws IOException {
+        return FeedSnapshot.decode(ByteBuffer.wrap(FeedSnapshot.encode(savedKey, articles)), loadedKey);
+    }
+
+    @Test
+    public void decode_restoresArticles() throws IOException {
+        List<Article> articles = Arrays.asList(
+                new Article("First", Arrays.asList("Keza MacDonald", "Keith Stuart"), "Games",
+                        "2018-07-20T09:00:00Z", "https://www.theguardian.com/a", "https://media.guim.co.uk/a.jpg"),
+                new Article("Second", null, "Technology", "2018-07-19T10:07:00Z", "https://www.theguardian.com/b"));
+
+        List<Article> restored = roundTrip("key", "key", articles);
+
+        assertEquals(2, restored.size());
+        assertEquals("First", restored.get(0).getArticleTitle());
+        assertEquals(Arrays.asList("Keza MacDonald", "Keith Stuart"), restored.get(0).getAuthors());
+        assertEquals("https://media.guim.co.uk/a.jpg", restored.get(0).getThumbnailUrl());
+        assertEquals(articles.get(0).getPublicationTime(), restored.get(0).getPublicationTime());
+        assertEquals("Technology", restored.get(1).getSectionName());
+        assertTrue(restored.get(1).getAuthors().isEmpty());
+        assertNull(restored.get(1).getThumbnailUrl());
+    }
+
+    @Test
+    public void decode_otherQueryIsEmpty() throws IOException {
+        List<Article> articles = Collections.singletonList(
+                new Article("First", null, "Games", "2018-07-20T09:00:00Z", "https://www.theguardian.com/a"));
+
+        assertTrue(roundTrip("key", "other key", articles).isEmpty());
+    }
+
+    @Test
+    public void write_skipsUnchangedArticles() {
+        List<Article> articles = Collections.singletonList(new Article("First", null, "Games",
+                "2018-07-20T09:00:00Z", "https://www.theguardian.com/a"));
+        List<Article> updated = Collections.singletonList(new Article("First, updated", null, "Games",
+                "2018-07-20T09:00:00Z", "https://www.theguardian.com/a"));
+
+        assertTrue(FeedSnapshot.write(mFolder.getRoot(), "key", articles));
+        // The same articles, delivered again or read from the cache
+        assertFalse(FeedSnapshot.write(mFolder.getRoot(), "key", new ArrayList<>(articles)));
+        assertTrue(FeedSnapshot.write(mFolder.getRoot(), "key", updated));
+        assertTrue(FeedSnapshot.write(mFolder.getRoot(), "other key", updated));
+    }
+
+}
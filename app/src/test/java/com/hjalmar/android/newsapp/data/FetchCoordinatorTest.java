@@ -0,0 +1,92 @@
+package com.hjalmar.android.newsapp.data;
+
+import com.hjalmar.android.newsapp.network.HttpClient;
+import com.hjalmar.android.newsapp.network.HttpResponse;
+import com.hjalmar.android.newsapp.network.Transport;
+import com.hjalmar.android.newsapp.network.UrlConnectionTransport;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FetchCoordinatorTest {
+
+    private static final String PAGE_URL = "https://content.guardianapis.com/search?q=games&page=1";
+
+    @After
+    public void restoreTransport() {
+        HttpClient.setTransport(new UrlConnectionTransport());
+    }
+
+    @Test(timeout = 5000)
+    public void fetch_transportThrows_releasesTheCall() throws Exception {
+        final CountDownLatch requestStarted = new CountDownLatch(1);
+        final CountDownLatch requestFails = new CountDownLatch(1);
+        final AtomicInteger requests = new AtomicInteger();
+        HttpClient.setTransport(new Transport() {
+            @Override
+            public HttpResponse get(URL url, String eTag, String lastModified) {
+                if (requests.incrementAndGet() == 1) {
+                    requestStarted.countDown();
+                    try {
+                        requestFails.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                throw new IllegalStateException("Transport failure");
+            }
+        });
+        final FetchCoordinator coordinator = new FetchCoordinator(null);
+
+        final AtomicInteger ownerFailures = new AtomicInteger();
+        Thread owner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    coordinator.fetch(PAGE_URL, null, null);
+                } catch (IllegalStateException e) {
+                    ownerFailures.incrementAndGet();
+                }
+            }
+        });
+        owner.start();
+        requestStarted.await();
+
+        // Joins the request in flight, without a signal to leave it
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    coordinator.fetch(PAGE_URL, null, null);
+                } catch (IllegalStateException e) {
+                    // Made its own request, if it arrived after the failure
+                }
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        requestFails.countDown();
+
+        owner.join();
+        waiter.join();
+        assertEquals(1, ownerFailures.get());
+
+        // A later fetch makes a new request rather than joining the failed one
+        final int requestsBefore = requests.get();
+        try {
+            coordinator.fetch(PAGE_URL, null, null);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(requests.get() > requestsBefore);
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.hjalmar.android.newsapp.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImageLoaderTest {
+
+    @Test
+    public void calculateInSampleSize_keepsAtLeastRequestedSize() {
+        // Guardian thumbnails are 500x300
+        assertEquals(2, ImageLoader.calculateInSampleSize(500, 300, 168, 126));
+        assertEquals(4, ImageLoader.calculateInSampleSize(500, 300, 112, 75));
+    }
+
+    @Test
+    public void calculateInSampleSize_noUpsampling() {
+        assertEquals(1, ImageLoader.calculateInSampleSize(100, 60, 168, 126));
+        assertEquals(1, ImageLoader.calculateInSampleSize(500, 300, 0, 0));
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.hjalmar.android.newsapp.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistogramTest {
+
+    private static final long NANOS_PER_MICRO = 1000;
+
+    @Test
+    public void bucketOf_powersOfTwo() {
+        assertEquals(0, Histogram.bucketOf(0));
+        assertEquals(1, Histogram.bucketOf(1));
+        assertEquals(2, Histogram.bucketOf(2));
+        assertEquals(2, Histogram.bucketOf(3));
+        assertEquals(11, Histogram.bucketOf(1024));
+        assertEquals(27, Histogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentileMicros_upperBoundOfBucket() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100 * NANOS_PER_MICRO);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5000 * NANOS_PER_MICRO);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(128, histogram.percentileMicros(50));
+        assertEquals(128, histogram.percentileMicros(90));
+        assertEquals(8192, histogram.percentileMicros(99));
+        assertEquals(5000 * NANOS_PER_MICRO, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        Histogram histogram = new Histogram();
+        histogram.record(NANOS_PER_MICRO);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotalNanos());
+        assertEquals(0, histogram.percentileMicros(50));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.hjalmar.android.newsapp.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleCodecTest {
+
+    private static final List<Article> ARTICLES = Arrays.asList(
+            new Article("First", Arrays.asList("Keza MacDonald", "Keith Stuart"), "Games",
+                    "2018-07-20T09:00:00Z", "https://www.theguardian.com/a", "https://media.guim.co.uk/a.jpg"),
+            new Article("Second", Arrays.asList("Keith Stuart"), "Games",
+                    "2018-07-19T10:07:00Z", "https://www.theguardian.com/b"),
+            new Article("Third", null, null, "2018-07-19", null));
+
+    @Test
+    public void decode_restoresArticles() throws IOException {
+        List<Article> restored = ArticleCodec.decode(ByteBuffer.wrap(ArticleCodec.encode(ARTICLES)));
+
+        assertEquals(ARTICLES.size(), restored.size());
+        for (int i = 0; i < ARTICLES.size(); i++) {
+            Article article = ARTICLES.get(i);
+            assertEquals(article.getArticleTitle(), restored.get(i).getArticleTitle());
+            assertEquals(article.getAuthors(), restored.get(i).getAuthors());
+            assertEquals(article.getSectionName(), restored.get(i).getSectionName());
+            assertEquals(article.getPublicationDate(), restored.get(i).getPublicationDate());
+            assertEquals(article.getUrl(), restored.get(i).getUrl());
+            assertEquals(article.getThumbnailUrl(), restored.get(i).getThumbnailUrl());
+        }
+        assertNull(restored.get(2).getSectionName());
+        assertTrue(restored.get(2).getAuthors().isEmpty());
+    }
+
+    @Test
+    public void decode_sharesRepeatedStrings() throws IOException {
+        List<Article> restored = ArticleCodec.decode(ByteBuffer.wrap(ArticleCodec.encode(ARTICLES)));
+
+        assertSame(restored.get(0).getAuthors().get(1), restored.get(1).getAuthors().get(0));
+    }
+
+    @Test
+    public void decode_readsFromDirectBuffer() throws IOException {
+        final byte[] bytes = ArticleCodec.encode(ARTICLES);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+
+        assertEquals("Keza MacDonald", ArticleCodec.decode(buffer).get(0).getAuthors().get(0));
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_truncated() throws IOException {
+        final byte[] bytes = ArticleCodec.encode(ARTICLES);
+        ArticleCodec.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 3));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_negativeCount() throws IOException {
+        // A string count of 10 bytes with all the bits set, which is -1 as a long
+        final byte[] bytes = {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+        ArticleCodec.decode(ByteBuffer.wrap(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_countLargerThanBuffer() throws IOException {
+        // A string count of 2^28 followed by a handful of bytes
+        final byte[] bytes = {1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01, 0, 0, 0};
+        ArticleCodec.decode(ByteBuffer.wrap(bytes));
+    }
+
+}
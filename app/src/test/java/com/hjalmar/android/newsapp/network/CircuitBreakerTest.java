@@ -0,0 +1,78 @@
+package com.hjalmar.android.newsapp.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static CircuitBreaker openBreaker(long now) {
+        CircuitBreaker breaker = new CircuitBreaker();
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            breaker.onFailure(now);
+        }
+        return breaker;
+    }
+
+    @Test
+    public void allowRequest_closedUntilThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker();
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            breaker.onFailure(0);
+        }
+
+        assertTrue(breaker.allowRequest(0));
+        breaker.onFailure(0);
+        assertFalse(breaker.allowRequest(0));
+    }
+
+    @Test
+    public void onSuccess_resetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker();
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            breaker.onFailure(0);
+        }
+        breaker.onSuccess();
+        breaker.onFailure(0);
+
+        assertTrue(breaker.allowRequest(0));
+    }
+
+    @Test
+    public void allowRequest_singleTrialAfterOpenDuration() {
+        CircuitBreaker breaker = openBreaker(0);
+        final long trialTime = CircuitBreaker.OPEN_DURATION_MILLIS;
+
+        assertFalse(breaker.allowRequest(trialTime - 1));
+        assertTrue(breaker.allowRequest(trialTime));
+        assertFalse(breaker.allowRequest(trialTime + 1));
+    }
+
+    @Test
+    public void trialOutcome_closesOrReopens() {
+        final long trialTime = CircuitBreaker.OPEN_DURATION_MILLIS;
+
+        CircuitBreaker recovered = openBreaker(0);
+        recovered.allowRequest(trialTime);
+        recovered.onSuccess();
+        assertFalse(recovered.isOpen());
+        assertTrue(recovered.allowRequest(trialTime + 1));
+
+        CircuitBreaker failing = openBreaker(0);
+        failing.allowRequest(trialTime);
+        failing.onFailure(trialTime);
+        assertFalse(failing.allowRequest(2 * trialTime - 1));
+        assertTrue(failing.allowRequest(2 * trialTime));
+    }
+
+    @Test
+    public void allowRequest_replacesAbandonedTrial() {
+        CircuitBreaker breaker = openBreaker(0);
+        final long trialTime = CircuitBreaker.OPEN_DURATION_MILLIS;
+        breaker.allowRequest(trialTime);
+
+        assertTrue(breaker.allowRequest(2 * trialTime));
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.hjalmar.android.newsapp.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HttpResponseTest {
+
+    /**
+     * A response with the given body, recording whether its connection has been aborted
+     */
+    private static class FakeResponse extends HttpResponse {
+
+        private final ByteArrayInputStream mBody;
+        private boolean mAborted;
+
+        FakeResponse(int bodyLength) {
+            super(200);
+            this.mBody = new ByteArrayInputStream(new byte[bodyLength]);
+        }
+
+        @Override
+        public String getMessage() {
+            return null;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        protected InputStream openBody() {
+            return mBody;
+        }
+
+        @Override
+        protected void abort() {
+            mAborted = true;
+        }
+    }
+
+    @Test
+    public void close_drainsShortRemainderToReuseConnection() throws IOException {
+        FakeResponse response = new FakeResponse(HttpResponse.MAX_DRAIN_BYTES);
+        response.getBody().read();
+        response.close();
+
+        assertFalse(response.mAborted);
+        assertEquals(0, response.mBody.available());
+    }
+
+    @Test
+    public void close_abortsLargeRemainder() throws IOException {
+        FakeResponse response = new FakeResponse(100 * HttpResponse.MAX_DRAIN_BYTES);
+        response.getBody().read();
+        response.close();
+
+        assertTrue(response.mAborted);
+        assertTrue(response.mBody.available() > 0);
+    }
+
+}
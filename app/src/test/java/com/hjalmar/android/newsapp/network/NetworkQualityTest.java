@@ -0,0 +1,45 @@
+package com.hjalmar.android.newsapp.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NetworkQualityTest {
+
+    @Test
+    public void classify_byMetering() {
+        assertEquals(NetworkQuality.UNMETERED, NetworkQuality.classify(false, 50000));
+        assertEquals(NetworkQuality.METERED, NetworkQuality.classify(true, 50000));
+    }
+
+    @Test
+    public void classify_slowWhateverTheMetering() {
+        assertEquals(NetworkQuality.SLOW, NetworkQuality.classify(true, 100));
+        assertEquals(NetworkQuality.SLOW, NetworkQuality.classify(false, NetworkQuality.SLOW_BANDWIDTH_KBPS - 1));
+    }
+
+    @Test
+    public void classify_unknownBandwidthIsNotSlow() {
+        assertEquals(NetworkQuality.METERED, NetworkQuality.classify(true, NetworkQuality.UNKNOWN_BANDWIDTH));
+    }
+
+    @Test
+    public void policy_loadsLessOnCostlierLinks() {
+        assertTrue(NetworkQuality.UNMETERED.getPrefetchDistance() > NetworkQuality.METERED.getPrefetchDistance());
+        assertTrue(NetworkQuality.METERED.getPrefetchDistance() > NetworkQuality.SLOW.getPrefetchDistance());
+        assertTrue(NetworkQuality.UNMETERED.getFreshTtl() < NetworkQuality.METERED.getFreshTtl());
+        assertTrue(NetworkQuality.METERED.getFreshTtl() < NetworkQuality.SLOW.getFreshTtl());
+        assertTrue(NetworkQuality.UNMETERED.allowsPrefetch());
+        assertFalse(NetworkQuality.METERED.allowsPrefetch());
+    }
+
+    @Test
+    public void offline_usesThePagesOfTheSync() {
+        // The sync runs on an unmetered network, its pages must be the ones requested offline
+        assertEquals(NetworkQuality.UNMETERED.getScreensPerPage(), NetworkQuality.OFFLINE.getScreensPerPage());
+        assertFalse(NetworkQuality.OFFLINE.isConnected());
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.hjalmar.android.newsapp.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void isRetryable() {
+        assertTrue(RetryPolicy.isRetryable(503));
+        assertTrue(RetryPolicy.isRetryable(429));
+        assertFalse(RetryPolicy.isRetryable(400));
+        assertFalse(RetryPolicy.isRetryable(404));
+    }
+
+    @Test
+    public void getDelayMillis_jitterWithinExponentialCeiling() {
+        for (int i = 0; i < 100; i++) {
+            final long first = RetryPolicy.getDelayMillis(1, null, 0);
+            final long second = RetryPolicy.getDelayMillis(2, null, 0);
+            assertTrue(first >= 0 && first < 500);
+            assertTrue(second >= 0 && second < 1000);
+        }
+    }
+
+    @Test
+    public void getDelayMillis_noRetryAfterLastAttempt() {
+        assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.getDelayMillis(RetryPolicy.MAX_ATTEMPTS, null, 0));
+    }
+
+    @Test
+    public void getDelayMillis_honorsRetryAfter() {
+        assertEquals(2000, RetryPolicy.getDelayMillis(1, "2", 0));
+        // Waiting longer than that is not worth it
+        assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.getDelayMillis(1, "120", 0));
+    }
+
+    @Test
+    public void parseRetryAfter_httpDate() {
+        // Sun, 06 Nov 1994 08:49:37 GMT
+        final long date = 784111777000L;
+
+        assertEquals(5000, RetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", date - 5000));
+        assertEquals(0, RetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", date + 5000));
+    }
+
+    @Test
+    public void parseRetryAfter_invalid() {
+        assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.parseRetryAfter(null, 0));
+        assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.parseRetryAfter("soon", 0));
+        assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.parseRetryAfter("-1", 0));
+    }
+
+}
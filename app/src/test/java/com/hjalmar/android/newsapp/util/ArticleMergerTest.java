@@ -0,0 +1,83 @@
+package com.hjalmar.android.newsapp.util;
+
+import com.hjalmar.android.newsapp.model.Article;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArticleMergerTest {
+
+    private static Article article(String url, String date) {
+        return new Article("Title " + url, null, "Games", date, url);
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+    @Test
+    public void merge_newestFirst() {
+        List<Article> first = Arrays.asList(article("a", "2018-06-24T10:00:00Z"), article("c", "2018-06-22T10:00:00Z"));
+        List<Article> second = Arrays.asList(article("b", "2018-06-23T10:00:00Z"), article("d", "2018-06-21T10:00:00Z"));
+
+        List<Article> merged = ArticleMerger.merge(Arrays.asList(first, second), ArticleMerger.NEWEST_FIRST, null);
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), urls(merged));
+    }
+
+    @Test
+    public void merge_oldestFirst() {
+        List<Article> first = Arrays.asList(article("a", "2018-06-21T10:00:00Z"), article("c", "2018-06-23T10:00:00Z"));
+        List<Article> second = Collections.singletonList(article("b", "2018-06-22T10:00:00Z"));
+
+        List<Article> merged = ArticleMerger.merge(Arrays.asList(first, second), ArticleMerger.OLDEST_FIRST, null);
+
+        assertEquals(Arrays.asList("a", "b", "c"), urls(merged));
+    }
+
+    @Test
+    public void merge_dropsDuplicatesAndSeenUrls() {
+        List<Article> first = Arrays.asList(article("a", "2018-06-24T10:00:00Z"), article("b", "2018-06-23T10:00:00Z"));
+        List<Article> second = Arrays.asList(article("b", "2018-06-23T10:00:00Z"), article("c", "2018-06-22T10:00:00Z"));
+        Set<String> seenUrls = new HashSet<>(Collections.singleton("c"));
+
+        List<Article> merged = ArticleMerger.merge(Arrays.asList(first, second), ArticleMerger.NEWEST_FIRST, seenUrls);
+
+        assertEquals(Arrays.asList("a", "b"), urls(merged));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), seenUrls);
+    }
+
+    @Test
+    public void applyDelta_addsNewArticlesOnTop() {
+        List<Article> page = Arrays.asList(article("b", "2018-06-23T10:00:00Z"), article("c", "2018-06-22T10:00:00Z"),
+                article("d", "2018-06-21T10:00:00Z"));
+        // The delta starts from the newest stored article, which is returned again
+        List<Article> delta = Arrays.asList(article("a", "2018-06-24T10:00:00Z"), article("b", "2018-06-23T10:00:00Z"));
+
+        List<Article> updated = ArticleMerger.applyDelta(delta, page, 3);
+
+        assertEquals(Arrays.asList("a", "b", "c"), urls(updated));
+        assertEquals(delta.get(1), updated.get(1));
+    }
+
+    @Test
+    public void applyDelta_fullDeltaReplacesPage() {
+        List<Article> page = Collections.singletonList(article("c", "2018-06-22T10:00:00Z"));
+        List<Article> delta = Arrays.asList(article("a", "2018-06-24T10:00:00Z"), article("b", "2018-06-23T10:00:00Z"));
+
+        assertEquals(Arrays.asList("a", "b"), urls(ArticleMerger.applyDelta(delta, page, 2)));
+    }
+
+}
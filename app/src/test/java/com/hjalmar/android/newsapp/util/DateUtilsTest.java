@@ -0,0 +1,47 @@
+package com.hjalmar.android.newsapp.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DateUtilsTest {
+
+    @Test
+    public void parseIsoInstant_epoch() {
+        assertEquals(0L, DateUtils.parseIsoInstant("1970-01-01T00:00:00Z"));
+    }
+
+    @Test
+    public void parseIsoInstant_guardianDate() {
+        // 2018-06-24T10:15:30Z
+        assertEquals(1529835330000L, DateUtils.parseIsoInstant("2018-06-24T10:15:30Z"));
+    }
+
+    @Test
+    public void parseIsoInstant_leapDay() {
+        assertEquals(951782400000L, DateUtils.parseIsoInstant("2000-02-29T00:00:00Z"));
+    }
+
+    @Test
+    public void parseIsoInstant_invalid() {
+        assertEquals(DateUtils.INVALID_TIME, DateUtils.parseIsoInstant(null));
+        assertEquals(DateUtils.INVALID_TIME, DateUtils.parseIsoInstant("2018-06-24"));
+        assertEquals(DateUtils.INVALID_TIME, DateUtils.parseIsoInstant("2018-13-24T10:15:30Z"));
+        assertEquals(DateUtils.INVALID_TIME, DateUtils.parseIsoInstant("2018-06-24Tab:15:30Z"));
+    }
+
+    @Test
+    public void formatIsoInstant_roundTrip() {
+        assertEquals("1970-01-01T00:00:00Z", DateUtils.formatIsoInstant(0L));
+        assertEquals("2018-06-24T10:15:30Z", DateUtils.formatIsoInstant(1529835330000L));
+        assertEquals("2000-02-29T00:00:00Z", DateUtils.formatIsoInstant(951782400000L));
+        assertEquals("1969-12-31T23:59:59Z", DateUtils.formatIsoInstant(-1000L));
+    }
+
+    @Test
+    public void formatDateLabel() {
+        assertEquals("2018-06-24", DateUtils.formatDateLabel("2018-06-24T10:15:30Z"));
+        assertEquals("", DateUtils.formatDateLabel(null));
+    }
+
+}
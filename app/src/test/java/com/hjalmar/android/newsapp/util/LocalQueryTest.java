@@ -0,0 +1,124 @@
+package com.hjalmar.android.newsapp.util;
+
+import com.hjalmar.android.newsapp.model.Article;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LocalQueryTest {
+
+    private static final Set<String> ALL_SECTIONS = Collections.emptySet();
+
+    private static Article article(String url, String section, String date) {
+        return new Article("Title " + url, null, section, date, url);
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * Articles in the order of a relevance response
+     */
+    private static List<Article> byRelevance() {
+        return Arrays.asList(
+                article("b", "Games", "2018-06-22T10:00:00Z"),
+                article("a", "Technology", "2018-06-24T10:00:00Z"),
+                article("x", "Games", "not a date"),
+                article("c", "Games", "2018-06-20T10:00:00Z"));
+    }
+
+    @Test
+    public void apply_sortsByDate() {
+        LocalQuery newest = new LocalQuery(LocalQuery.Order.NEWEST, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+        LocalQuery oldest = new LocalQuery(LocalQuery.Order.OLDEST, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+
+        // Invalid dates go last with the newest first, like when merging the topics
+        assertEquals(Arrays.asList("a", "b", "c", "x"), urls(newest.apply(byRelevance(), LocalQuery.Order.RELEVANCE)));
+        assertEquals(Arrays.asList("x", "c", "b", "a"), urls(oldest.apply(byRelevance(), LocalQuery.Order.RELEVANCE)));
+    }
+
+    @Test
+    public void apply_restoresRelevanceOrder() {
+        LocalQuery newest = new LocalQuery(LocalQuery.Order.NEWEST, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+        LocalQuery relevance = new LocalQuery(LocalQuery.Order.RELEVANCE, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+        List<Article> loaded = byRelevance();
+
+        assertEquals(Arrays.asList("a", "b", "c", "x"), urls(newest.apply(loaded, LocalQuery.Order.RELEVANCE)));
+
+        // The relevance is the position in the loaded list, which sorting doesn't change
+        assertEquals(Arrays.asList("b", "a", "x", "c"), urls(loaded));
+        assertSame(loaded, relevance.apply(loaded, LocalQuery.Order.RELEVANCE));
+    }
+
+    @Test
+    public void apply_keepsEqualDatesInLoadedOrder() {
+        List<Article> loaded = Arrays.asList(
+                article("a", "Games", "2018-06-22T10:00:00Z"),
+                article("b", "Games", "2018-06-24T10:00:00Z"),
+                article("c", "Games", "2018-06-22T10:00:00Z"));
+        LocalQuery oldest = new LocalQuery(LocalQuery.Order.OLDEST, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+
+        assertEquals(Arrays.asList("a", "c", "b"), urls(oldest.apply(loaded, LocalQuery.Order.RELEVANCE)));
+    }
+
+    @Test
+    public void apply_filtersSectionsIgnoringCase() {
+        LocalQuery query = new LocalQuery(LocalQuery.Order.RELEVANCE, new HashSet<>(Collections.singleton("games")), LocalQuery.NO_DATE_LIMIT);
+
+        assertEquals(Arrays.asList("b", "x", "c"), urls(query.apply(byRelevance(), LocalQuery.Order.RELEVANCE)));
+    }
+
+    @Test
+    public void apply_filtersDate() {
+        final long fromTime = DateUtils.parseIsoInstant("2018-06-21T00:00:00Z");
+        LocalQuery query = new LocalQuery(LocalQuery.Order.NEWEST, ALL_SECTIONS, fromTime);
+
+        assertEquals(Arrays.asList("a", "b"), urls(query.apply(byRelevance(), LocalQuery.Order.RELEVANCE)));
+    }
+
+    @Test
+    public void apply_returnsTheListWhenNothingChanges() {
+        LocalQuery query = new LocalQuery(LocalQuery.Order.NEWEST, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+        List<Article> loaded = byRelevance();
+
+        assertSame(loaded, query.apply(loaded, LocalQuery.Order.NEWEST));
+    }
+
+    @Test
+    public void canApply() {
+        LocalQuery newest = new LocalQuery(LocalQuery.Order.NEWEST, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+        LocalQuery relevance = new LocalQuery(LocalQuery.Order.RELEVANCE, ALL_SECTIONS, LocalQuery.NO_DATE_LIMIT);
+
+        // Filtering is always possible, sorting by date only when all the articles are loaded
+        assertTrue(newest.canApply(LocalQuery.Order.NEWEST, false));
+        assertTrue(newest.canApply(LocalQuery.Order.OLDEST, true));
+        assertFalse(newest.canApply(LocalQuery.Order.OLDEST, false));
+
+        // The relevance is only known from a response ordered by relevance
+        assertTrue(relevance.canApply(LocalQuery.Order.RELEVANCE, false));
+        assertFalse(relevance.canApply(LocalQuery.Order.NEWEST, true));
+    }
+
+    @Test
+    public void parseSections() {
+        assertEquals(new HashSet<>(Arrays.asList("Games", "Technology")), LocalQuery.parseSections(" Games, ,Technology,Games"));
+        assertTrue(LocalQuery.parseSections("").isEmpty());
+    }
+
+}
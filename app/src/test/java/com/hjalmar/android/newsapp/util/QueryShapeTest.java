@@ -0,0 +1,30 @@
+package com.hjalmar.android.newsapp.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueryShapeTest {
+
+    @Test
+    public void pageSizeFor_twoScreensOfRows() {
+        // 10 rows of 64 px on a 640 px screen
+        assertEquals(20, QueryShape.pageSizeFor(640, 64, 2));
+        // A partially visible row counts as a row
+        assertEquals(22, QueryShape.pageSizeFor(650, 64, 2));
+    }
+
+    @Test
+    public void pageSizeFor_singleScreen() {
+        // 15 rows of 64 px on a 960 px screen, as on a slow link
+        assertEquals(15, QueryShape.pageSizeFor(960, 64, 1));
+    }
+
+    @Test
+    public void pageSizeFor_bounded() {
+        assertEquals(QueryShape.MIN_PAGE_SIZE, QueryShape.pageSizeFor(200, 64, 2));
+        assertEquals(QueryShape.MAX_PAGE_SIZE, QueryShape.pageSizeFor(4000, 64, 2));
+        assertEquals(QueryShape.MIN_PAGE_SIZE, QueryShape.pageSizeFor(640, 0, 2));
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.hjalmar.android.newsapp.util;
+
+import com.hjalmar.android.newsapp.model.Article;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringPoolTest {
+
+    @Test
+    public void intern_returnsFirstInstance() {
+        StringPool pool = new StringPool();
+        final String first = new String("Technology");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(new String("Technology")));
+        assertEquals(1, pool.size());
+        assertNull(pool.intern((String) null));
+    }
+
+    @Test
+    public void intern_sharesEqualLists() {
+        StringPool pool = new StringPool();
+        List<String> authors = pool.intern(new ArrayList<>(Arrays.asList("Keza MacDonald", "Keith Stuart")));
+
+        assertSame(authors, pool.intern(Arrays.asList("Keza MacDonald", "Keith Stuart")));
+        assertEquals(Collections.emptyList(), pool.intern(new ArrayList<String>()));
+    }
+
+    @Test
+    public void authorsLine_sharedByArticlesOfTheSameAuthors() {
+        StringPool pool = new StringPool();
+        Article first = new Article("First", pool.intern(Arrays.asList("Keza MacDonald", "Keith Stuart")),
+                "Games", "2018-07-20T09:00:00Z", "https://www.theguardian.com/a", null, pool);
+        Article second = new Article("Second", pool.intern(Arrays.asList("Keza MacDonald", "Keith Stuart")),
+                "Games", "2018-07-19T10:07:00Z", "https://www.theguardian.com/b", null, pool);
+
+        assertEquals("Keza MacDonald, Keith Stuart", first.getAuthorsLine());
+        assertSame(first.getAuthorsLine(), second.getAuthorsLine());
+        assertSame(first.getAuthors(), second.getAuthors());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void intern_listIsUnmodifiable() {
+        new StringPool().intern(new ArrayList<>(Collections.singletonList("Alex Hern"))).add("Samuel Gibbs");
+    }
+
+}
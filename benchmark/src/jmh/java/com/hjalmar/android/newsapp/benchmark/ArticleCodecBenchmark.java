@@ -0,0 +1,60 @@
+package com.hjalmar.android.newsapp.benchmark;
+
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.model.ArticleCodec;
+import com.hjalmar.android.newsapp.util.ArticleJsonParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the binary format of the article lists, to be compared with
+ * {@link ArticleParsingBenchmark#readFromStream()} reading the same articles from JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ArticleCodecBenchmark {
+
+    @Param({"10", "200", "5000"})
+    public int size;
+
+    private List<Article> mArticles;
+
+    private byte[] mEncoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] json = GuardianFixtures.response(size);
+        mArticles = ArticleJsonParser.readFromStream(new ByteArrayInputStream(json));
+        mEncoded = ArticleCodec.encode(mArticles);
+        if (ArticleCodec.decode(ByteBuffer.wrap(mEncoded)).size() != size) {
+            throw new IllegalStateException("Decoded a different number of articles than " + size);
+        }
+        System.out.println(size + " articles: " + json.length + " bytes of JSON, "
+                + mEncoded.length + " bytes encoded");
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ArticleCodec.encode(mArticles);
+    }
+
+    @Benchmark
+    public List<Article> decode() throws IOException {
+        return ArticleCodec.decode(ByteBuffer.wrap(mEncoded));
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.hjalmar.android.newsapp.benchmark;
+
+import android.util.JsonReader;
+
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.util.ArticleJsonParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the parsing of a search response, from its raw bytes
+ * as they come from the network and from an already decoded string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ArticleParsingBenchmark {
+
+    @Param({"10", "200", "5000"})
+    public int size;
+
+    private byte[] mResponseBytes;
+
+    private String mResponseString;
+
+    @Setup
+    public void setUp() throws IOException {
+        mResponseBytes = GuardianFixtures.response(size);
+        mResponseString = new String(mResponseBytes, Charset.forName("UTF-8"));
+
+        // Make sure every result of the fixture is parsed, or the numbers would be meaningless
+        List<Article> articles = ArticleJsonParser.readFromStream(new ByteArrayInputStream(mResponseBytes));
+        if (articles == null || articles.size() != size) {
+            throw new IllegalStateException("Parsed " + (articles == null ? 0 : articles.size())
+                    + " articles out of " + size);
+        }
+    }
+
+    @Benchmark
+    public List<Article> readFromStream() throws IOException {
+        return ArticleJsonParser.readFromStream(new ByteArrayInputStream(mResponseBytes));
+    }
+
+    @Benchmark
+    public List<Article> extractFeatureFromJson() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(mResponseString));
+        try {
+            return ArticleJsonParser.extractFeatureFromJson(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.hjalmar.android.newsapp.benchmark;
+
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.util.ArticleJsonParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the formatting of the authors line of every article of a search response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AuthorsFormattingBenchmark {
+
+    @Param({"10", "200", "5000"})
+    public int size;
+
+    private List<List<String>> mAuthors;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Article> articles = ArticleJsonParser.readFromStream(
+                new ByteArrayInputStream(GuardianFixtures.response(size)));
+        mAuthors = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            mAuthors.add(article.getAuthors());
+        }
+    }
+
+    @Benchmark
+    public void buildAuthorsString(Blackhole blackhole) {
+        for (int i = 0; i < mAuthors.size(); i++) {
+            blackhole.consume(Article.buildAuthorsString(mAuthors.get(i)));
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.hjalmar.android.newsapp.benchmark;
+
+import com.hjalmar.android.newsapp.model.Article;
+import com.hjalmar.android.newsapp.network.HttpClient;
+import com.hjalmar.android.newsapp.network.HttpResponse;
+import com.hjalmar.android.newsapp.util.ArticleJsonParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency of fetching and parsing a page from a {@link MockGuardianServer},
+ * through the same {@link HttpClient} used by the app, with several requests in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class FetchBenchmark {
+
+    private static final int PAGES = 10;
+
+    @Param({"0", "100"})
+    public long latencyMillis;
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    private MockGuardianServer mServer;
+
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException {
+        mServer = new MockGuardianServer(0, latencyMillis, 0, 0, PAGES);
+        mServer.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Benchmark
+    public List<Article> fetchPage() throws IOException {
+        final int page = mRequestCount.getAndIncrement() % PAGES + 1;
+        URL url = new URL(mServer.getSearchUrl() + "?q=games&page-size=" + pageSize + "&page=" + page);
+        HttpResponse response = HttpClient.get(url, null, null);
+        try {
+            return ArticleJsonParser.readFromStream(response.getBody());
+        } finally {
+            response.close();
+        }
+    }
+
+}
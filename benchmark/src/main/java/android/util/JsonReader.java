@@ -0,0 +1,120 @@
+package android.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * JVM stand-in for the framework JsonReader, backed by the Gson reader it was derived from.
+ * Only the methods used by the app are exposed.
+ */
+public final class JsonReader implements Closeable {
+
+    private final com.google.gson.stream.JsonReader mReader;
+
+    public JsonReader(Reader in) {
+        mReader = new com.google.gson.stream.JsonReader(in);
+    }
+
+    public void beginArray() throws IOException {
+        try {
+            mReader.beginArray();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public void endArray() throws IOException {
+        try {
+            mReader.endArray();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public void beginObject() throws IOException {
+        try {
+            mReader.beginObject();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public void endObject() throws IOException {
+        try {
+            mReader.endObject();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public boolean hasNext() throws IOException {
+        try {
+            return mReader.hasNext();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public JsonToken peek() throws IOException {
+        try {
+            return JsonToken.valueOf(mReader.peek().name());
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public String nextName() throws IOException {
+        try {
+            return mReader.nextName();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public String nextString() throws IOException {
+        try {
+            return mReader.nextString();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public long nextLong() throws IOException {
+        try {
+            return mReader.nextLong();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        try {
+            return mReader.nextBoolean();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public void nextNull() throws IOException {
+        try {
+            mReader.nextNull();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    public void skipValue() throws IOException {
+        try {
+            mReader.skipValue();
+        } catch (com.google.gson.stream.MalformedJsonException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+
+}
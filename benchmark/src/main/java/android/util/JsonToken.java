@@ -0,0 +1,8 @@
+package android.util;
+
+/**
+ * JVM stand-in for the framework JsonToken, with the same constants as the Gson one.
+ */
+public enum JsonToken {
+    BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+}
@@ -0,0 +1,167 @@
+package com.hjalmar.android.newsapp.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guardian search responses used by the benchmarks and by the {@link MockGuardianServer}.
+ * The recorded response holds one result per line, so responses of any size can be
+ * built by repeating its results, each copy with its own url and publication date.
+ */
+final class GuardianFixtures {
+
+    private static final String RECORDED_RESPONSE = "/search-10.json";
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String WEB_URL_KEY = "\"webUrl\": \"https://www.theguardian.com/";
+
+    private static final String DATE_KEY = "\"webPublicationDate\": \"2018-07-";
+
+    private static final String PUBLICATION_DATE_KEY = "\"webPublicationDate\": \"";
+
+    private static final String TAGS_KEY = ", \"tags\": ";
+
+    private static final String FIELDS_KEY = ", \"fields\": ";
+
+    private static final List<String> sHeader = new ArrayList<>();
+    private static final List<String> sResults = new ArrayList<>();
+    private static final List<String> sFooter = new ArrayList<>();
+
+    private GuardianFixtures() {
+    }
+
+    /**
+     * Return the UTF-8 bytes of a search response holding the given number of results.
+     */
+    static byte[] response(int size) throws IOException {
+        return response(size, "");
+    }
+
+    /**
+     * Return the UTF-8 bytes of a search response holding the given number of results,
+     * whose urls all start with the given path prefix.
+     */
+    static byte[] response(int size, String urlPrefix) throws IOException {
+        return response(size, urlPrefix, true, true, null);
+    }
+
+    /**
+     * Return the UTF-8 bytes of a search response holding the given number of results,
+     * whose urls all start with the given path prefix, with or without the contributor tags
+     * and the thumbnail fields, as requested with show-tags and show-fields.
+     * Only the results published from the given ISO 8601 date on are kept, if one is given.
+     */
+    static synchronized byte[] response(int size, String urlPrefix, boolean showTags, boolean showFields,
+                                        String fromDate) throws IOException {
+        if (sResults.isEmpty()) {
+            readRecordedResponse();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String line : sHeader) {
+            sb.append(line).append('\n');
+        }
+        boolean first = true;
+        for (int i = 0; i < size; i++) {
+            String result = sResults.get(i % sResults.size());
+            final int copy = i / sResults.size();
+            if (copy > 0 || !urlPrefix.isEmpty()) {
+                result = result.replace(WEB_URL_KEY, WEB_URL_KEY + urlPrefix + copy + "/");
+            }
+            if (copy > 0) {
+                // Spread the copies over the previous months, keeping the dates valid
+                result = result.replace(DATE_KEY, "\"webPublicationDate\": \"" + (2017 - copy / 12)
+                        + "-" + pad(12 - copy % 12) + "-");
+            }
+            if (fromDate != null && publicationDate(result).compareTo(fromDate) < 0) {
+                continue;
+            }
+            if (!showTags) {
+                result = removeMember(result, TAGS_KEY);
+            }
+            if (!showFields) {
+                result = removeMember(result, FIELDS_KEY);
+            }
+            sb.append(first ? "  " : ",\n  ").append(result);
+            first = false;
+        }
+        sb.append('\n');
+        for (String line : sFooter) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString().getBytes(UTF_8);
+    }
+
+    private static void readRecordedResponse() throws IOException {
+        InputStream inputStream = GuardianFixtures.class.getResourceAsStream(RECORDED_RESPONSE);
+        if (inputStream == null) {
+            throw new IOException("Missing fixture " + RECORDED_RESPONSE);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().startsWith("{\"id\"")) {
+                    line = line.trim();
+                    sResults.add(line.endsWith(",") ? line.substring(0, line.length() - 1) : line);
+                } else if (sResults.isEmpty()) {
+                    sHeader.add(line);
+                } else {
+                    sFooter.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Return the publication date of the result, as an ISO 8601 string.
+     */
+    private static String publicationDate(String result) {
+        final int start = result.indexOf(PUBLICATION_DATE_KEY) + PUBLICATION_DATE_KEY.length();
+        return result.substring(start, result.indexOf('"', start));
+    }
+
+    /**
+     * Return the result without the member starting with the given key, skipping its array
+     * or object value up to the matching bracket.
+     */
+    private static String removeMember(String result, String key) {
+        final int start = result.indexOf(key);
+        if (start < 0) {
+            return result;
+        }
+        int depth = 0;
+        boolean inString = false;
+        int end = start + key.length();
+        do {
+            final char c = result.charAt(end++);
+            if (inString) {
+                if (c == '\\') {
+                    end++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '[' || c == '{') {
+                depth++;
+            } else if (c == ']' || c == '}') {
+                depth--;
+            }
+        } while (depth > 0);
+        return result.substring(0, start) + result.substring(end);
+    }
+
+    private static String pad(int value) {
+        return value < 10 ? "0" + value : String.valueOf(value);
+    }
+
+}
@@ -0,0 +1,261 @@
+package com.hjalmar.android.newsapp.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in of the Guardian search endpoint, replaying the recorded fixtures.
+ * Every page of every topic gets its own articles, and the responses honour gzip,
+ * ETag revalidation and the show-tags, show-fields and from-date parameters like the
+ * real API does. The latency, the throughput and the error rate of the responses can be
+ * configured, so fetching can be measured under controlled conditions.
+ *
+ * Run it with {@code ./gradlew :benchmark:mockGuardianServer -PmockArgs="--latency=300 --error-rate=0.1"}
+ * and build the app with {@code -PguardianRequestUrl=http://10.0.2.2:8080/search} to use it from the emulator.
+ */
+public class MockGuardianServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final String SEARCH_PATH = "/search";
+
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    /**
+     * The largest page size accepted by the real API
+     */
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final int DEFAULT_PAGES = 10;
+
+    private static final int WORKER_THREADS = 16;
+
+    /**
+     * The number of bytes written at a time when the throughput is limited
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    static {
+        // Without it the headers and the body of small responses are delayed by Nagle's algorithm,
+        // adding tens of milliseconds to every request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final int mPort;
+    private final long mLatencyMillis;
+    private final long mBytesPerSecond;
+    private final double mErrorRate;
+    private final int mPages;
+
+    private final Random mRandom = new Random();
+
+    private HttpServer mServer;
+    private ExecutorService mExecutor;
+
+    /**
+     * @param port           the port to listen on, or 0 for any free port
+     * @param latencyMillis  the delay before each response is sent
+     * @param bytesPerSecond the throughput of the response bodies, or 0 for no limit
+     * @param errorRate      the fraction of requests answered with a server error
+     * @param pages          the number of pages available for each topic
+     */
+    public MockGuardianServer(int port, long latencyMillis, long bytesPerSecond, double errorRate, int pages) {
+        this.mPort = port;
+        this.mLatencyMillis = latencyMillis;
+        this.mBytesPerSecond = bytesPerSecond;
+        this.mErrorRate = errorRate;
+        this.mPages = pages;
+    }
+
+    public void start() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress(mPort), 0);
+        mServer.createContext(SEARCH_PATH, new SearchHandler());
+        mExecutor = Executors.newFixedThreadPool(WORKER_THREADS);
+        mServer.setExecutor(mExecutor);
+        mServer.start();
+    }
+
+    public void stop() {
+        if (mServer != null) {
+            mServer.stop(0);
+            mExecutor.shutdownNow();
+            mServer = null;
+        }
+    }
+
+    /**
+     * Return the URL of the search endpoint, to be used in place of the Guardian one.
+     */
+    public String getSearchUrl() {
+        return "http://localhost:" + mServer.getAddress().getPort() + SEARCH_PATH;
+    }
+
+    private class SearchHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                sleep(mLatencyMillis);
+
+                if (mRandom.nextDouble() < mErrorRate) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, "{\"message\":\"Service Unavailable\"}".getBytes(GuardianFixtures.UTF_8), null);
+                    return;
+                }
+
+                Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+                final String topic = parameters.containsKey("q") ? parameters.get("q") : "";
+                final int page = parseInt(parameters.get("page"), 1);
+                final int pageSize = Math.min(parseInt(parameters.get("page-size"), DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+                if (page < 1 || page > mPages) {
+                    send(exchange, 400, ("{\"response\":{\"status\":\"error\",\"message\":"
+                            + "\"requested page is beyond the number of available pages\"}}").getBytes(GuardianFixtures.UTF_8), null);
+                    return;
+                }
+
+                // The url prefix makes the articles of each page of each topic distinct
+                final String urlPrefix = topic.replaceAll("[^A-Za-z0-9]", "-") + "/" + page + "/";
+                // Like the real API, the tags and the fields are only sent when they are asked for
+                final String showTags = parameters.get("show-tags");
+                final String showFields = parameters.get("show-fields");
+                byte[] body = GuardianFixtures.response(pageSize, urlPrefix,
+                        showTags != null && showTags.contains("contributor"),
+                        showFields != null && showFields.contains("thumbnail"), parameters.get("from-date"));
+                final String eTag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+                if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.getResponseHeaders().set("ETag", eTag);
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                send(exchange, 200, body, eTag);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void send(HttpExchange exchange, int code, byte[] body, String eTag) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (eTag != null) {
+                exchange.getResponseHeaders().set("ETag", eTag);
+            }
+            final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            exchange.sendResponseHeaders(code, body.length);
+            OutputStream outputStream = exchange.getResponseBody();
+            if (mBytesPerSecond <= 0) {
+                outputStream.write(body);
+            } else {
+                for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+                    final int count = Math.min(CHUNK_SIZE, body.length - offset);
+                    outputStream.write(body, offset, count);
+                    outputStream.flush();
+                    sleep(count * 1000L / mBytesPerSecond);
+                }
+            }
+            outputStream.close();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(body.length / 4);
+        GZIPOutputStream gzipStream = new GZIPOutputStream(byteStream);
+        try {
+            gzipStream.write(body);
+        } finally {
+            gzipStream.close();
+        }
+        return byteStream.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            final int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start a server configured by the arguments
+     * {@code --port=}, {@code --latency=} (ms), {@code --throughput=} (bytes per second),
+     * {@code --error-rate=} (0 to 1) and {@code --pages=}.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        long latencyMillis = 0;
+        long bytesPerSecond = 0;
+        double errorRate = 0;
+        int pages = DEFAULT_PAGES;
+        for (String arg : args) {
+            final String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(value);
+            } else if (arg.startsWith("--latency=")) {
+                latencyMillis = Long.parseLong(value);
+            } else if (arg.startsWith("--throughput=")) {
+                bytesPerSecond = Long.parseLong(value);
+            } else if (arg.startsWith("--error-rate=")) {
+                errorRate = Double.parseDouble(value);
+            } else if (arg.startsWith("--pages=")) {
+                pages = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        MockGuardianServer server = new MockGuardianServer(port, latencyMillis, bytesPerSecond, errorRate, pages);
+        server.start();
+        System.out.println("Serving " + server.getSearchUrl() + " with " + latencyMillis + " ms latency, "
+                + (bytesPerSecond > 0 ? bytesPerSecond + " B/s" : "unlimited") + " throughput and "
+                + errorRate + " error rate");
+    }
+
+}
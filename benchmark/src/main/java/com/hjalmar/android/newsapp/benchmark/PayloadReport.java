@@ -0,0 +1,53 @@
+package com.hjalmar.android.newsapp.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prints the size of a page of search results for each shape of the query, before and after
+ * leaving out the contributor tags and the thumbnail fields that the article list doesn't render.
+ *
+ * Run it with {@code ./gradlew :benchmark:payloadReport -PreportArgs="--page-size=20"}.
+ */
+public class PayloadReport {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static void main(String[] args) throws IOException {
+        int pageSize = DEFAULT_PAGE_SIZE;
+        for (String arg : args) {
+            if (arg.startsWith("--page-size=")) {
+                pageSize = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        final byte[] full = GuardianFixtures.response(pageSize, "", true, true, null);
+        System.out.println("Page of " + pageSize + " articles");
+        System.out.println(String.format("%-34s %10s %10s %12s", "shape", "bytes", "gzip", "per article"));
+        print("tags + thumbnail (before)", full, full, pageSize);
+        print("tags", GuardianFixtures.response(pageSize, "", true, false, null), full, pageSize);
+        print("thumbnail", GuardianFixtures.response(pageSize, "", false, true, null), full, pageSize);
+        print("no tags, no fields", GuardianFixtures.response(pageSize, "", false, false, null), full, pageSize);
+    }
+
+    private static void print(String shape, byte[] body, byte[] full, int pageSize) throws IOException {
+        final long savedPercent = (full.length - body.length) * 100L / full.length;
+        System.out.println(String.format("%-34s %10d %10d %12d  (%d%% smaller)", shape, body.length, gzip(body).length,
+                body.length / pageSize, savedPercent));
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(body.length / 4);
+        GZIPOutputStream gzipStream = new GZIPOutputStream(byteStream);
+        try {
+            gzipStream.write(body);
+        } finally {
+            gzipStream.close();
+        }
+        return byteStream.toByteArray();
+    }
+
+}